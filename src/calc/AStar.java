@@ -5,6 +5,7 @@ import entities.Entity;
 import fx.Hexagon;
 import java.awt.Point;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import main.GraphicsHandler;
 
 /**
@@ -13,6 +14,17 @@ import main.GraphicsHandler;
  */
 public class AStar {
 
+    // Shared search engine, its arrays are reused between queries
+    private static final ComponentMap COMPONENTS = new ComponentMap();
+    private static final PathFinder FINDER = new PathFinder(COMPONENTS);
+    private static final RangeFinder RANGE = new RangeFinder();
+    private static final RoutePlanner ROUTES = new RoutePlanner(COMPONENTS);
+    private static final FlowFieldFinder FLOWS = new FlowFieldFinder();
+    // Own small pool, the reverse searches of a squad move don't compete with unrelated tasks
+    private static final SquadPlanner SQUADS = new SquadPlanner(new ForkJoinPool(Math.min(4, Runtime.getRuntime().availableProcessors())));
+    // Recent paths, measurements and previews repeat the same queries on every mouse move
+    private static final PathCache CACHE = new PathCache(FINDER, 256);
+
     /**
      * A* pathfinding algorithm to find the shortest path between two hexagons.
      * @param start The starting hexagon
@@ -22,155 +34,88 @@ public class AStar {
      * @return List of hexagons representing the path, or null if no path exists
      */
     public static ArrayList<Hexagon> run(Hexagon start, Hexagon end, GraphicsHandler gh, boolean ignoreObstacles) {
-        // Early exit if start or end is null
-        if (start == null || end == null) return null;
-
-        // Open list prioritizes nodes with lowest fCost
-        PriorityQueue<HexNode> openList = new PriorityQueue<>((a, b) ->
-            Double.compare(a.fCost, b.fCost));
-        // Closed list tracks already evaluated nodes
-        HashSet<Point> closedList = new HashSet<>();
-        // Tracks the optimal path (node -> cameFrom)
-        HashMap<Point, Point> cameFrom = new HashMap<>();
-        // Tracks the cost from start to each node
-        HashMap<Point, Double> gCost = new HashMap<>();
-
-        // Initialize with start node
-        HexNode startNode = new HexNode(start, 0, heuristic(start, end));
-        openList.add(startNode);
-        gCost.put(start.getGridPoint(), 0.0);
-
-        while (!openList.isEmpty()) {
-            HexNode current = openList.poll();
-            Hexagon currentHex = current.hex;
-            Point currentPoint = currentHex.getGridPoint();
-
-            // Check if we've reached the destination
-            if (currentPoint.equals(end.getGridPoint())) {
-                if(gh.debugMode) 
-                    gh.consol.addLogMessage("Shortest path is " + current.gCost + " tiles long.");
-                return reconstructPath(start, end, cameFrom, gh);
-            }
-
-            closedList.add(currentPoint);
-
-            // Evaluate all neighbors
-            Hexagon[] neighbors = getNeighbors(currentHex, gh);
-            for (Hexagon neighbor : neighbors) {
-                if (neighbor == null) continue;
-
-                // Skip if neighbor is occupied (unless ignoring obstacles)
-                if (isOccupiedByEntity(neighbor, start, gh) && !ignoreObstacles) continue;
-
-                Point neighborPoint = neighbor.getGridPoint();
-
-                // Skip if already evaluated
-                if (closedList.contains(neighborPoint)) continue;
-
-                // Calculate tentative movement cost
-                double tentativeGCost = gCost.get(currentPoint) + 1;
-
-                // If this path to neighbor is better than any previous one
-                Double neighborGCost = gCost.get(neighborPoint);
-                if (neighborGCost == null || tentativeGCost < neighborGCost) {
-                    cameFrom.put(neighborPoint, currentPoint);
-                    gCost.put(neighborPoint, tentativeGCost);
-
-                    double fCost = tentativeGCost + heuristic(neighbor, end);
+        return CACHE.find(start, end, gh, ignoreObstacles);
+    }
 
-                    // Update existing node in open list if present
-                    boolean found = false;
-                    for (HexNode node : openList) {
-                        if (node.hex.getGridPoint().equals(neighborPoint)) {
-                            found = true;
-                            node.fCost = fCost;
-                            break;
-                        }
-                    }
+    /**
+     * Checks in constant time whether a path from start to end can exist at all.
+     * @param start The starting hexagon
+     * @param end The target hexagon
+     * @param gh GraphicsHandler containing game state
+     * @return False if end lies in a region the entity on start can't walk into
+     */
+    public static boolean isReachable(Hexagon start, Hexagon end, GraphicsHandler gh) {
+        return COMPONENTS.canReach(start, end, gh);
+    }
 
-                    // Add to open list if not already there
-                    if (!found) {
-                        openList.add(new HexNode(neighbor, tentativeGCost, fCost));
-                    }
-                }
-            }
-        }
-        
-        if(gh.debugMode)
-            gh.consol.addLogMessage("No path found");
-        return null;
+    /**
+     * @return The cache in front of run, e.g. for its hit and miss counters
+     */
+    public static PathCache getPathCache() {
+        return CACHE;
     }
 
     /**
      * Calculates all reachable hexagons within a given movement range.
      * @param center Starting hexagon
      * @param speed Maximum movement distance
-     * @param movingCharacter The character moving (null for no collision checks)
+     * @param movingCharacter The character moving (null for single tile collision checks)
      * @param gh GraphicsHandler containing game state
      * @return List of reachable hexagons
      */
     public static ArrayList<Hexagon> range(Hexagon center, int speed, Character movingCharacter, GraphicsHandler gh) {
-        if(speed == 0 || center == null) return new ArrayList<>();
-
-        ArrayList<Hexagon> available = new ArrayList<>();
-        ArrayList<Hexagon> currentHexagons = new ArrayList<>();
-        currentHexagons.add(center);
-
-        // Expand outward for each movement point
-        for (int i = 0; i < speed; i++) {
-            ArrayList<Hexagon> nextHexagons = new ArrayList<>();
-            for (Hexagon h : currentHexagons) {
-                for (Hexagon hex : getNeighbors(h, gh)) {
-                    if (hex != null && !available.contains(hex) && 
-                        hex != center && !nextHexagons.contains(hex)) {
+        return movementRange(center, speed, movingCharacter, gh).getTiles();
+    }
 
-                        boolean isValid = true;
+    /**
+     * Calculates all reachable hexagons together with the movement cost and cheapest path to them.
+     * @param center Starting hexagon
+     * @param speed Maximum movement distance
+     * @param movingCharacter The character moving (null for single tile collision checks)
+     * @param gh GraphicsHandler containing game state
+     * @return The reachable tiles with their costs and predecessors
+     */
+    public static DistanceField movementRange(Hexagon center, int speed, Character movingCharacter, GraphicsHandler gh) {
+        return RANGE.find(center, speed, movingCharacter, gh);
+    }
 
-                        // Special handling for character movement with collision checks
-                        if (movingCharacter != null) {
-                            ArrayList<Hexagon> targetTiles = Character.getOccupiedTiles(hex, movingCharacter.getSize(), gh);
+    /**
+     * Plans a route from a start through several waypoints.
+     * @param start The starting hexagon
+     * @param waypoints Hexagons to visit
+     * @param optimizeOrder If true the waypoints are visited in the cheapest order, otherwise as given
+     * @param gh GraphicsHandler containing game state
+     * @return The route with its visiting order, tiles and cost, or null if a waypoint can't be reached
+     */
+    public static RoutePlanner.Route route(Hexagon start, List<Hexagon> waypoints, boolean optimizeOrder, GraphicsHandler gh) {
+        if (start == null || waypoints == null || gh == null) return null;
+        return ROUTES.plan(start, waypoints, optimizeOrder, gh);
+    }
 
-                            for (Hexagon targetTile : targetTiles) {
-                                // Check if target tile is currently occupied by moving character
-                                boolean isCurrentlyOccupiedByMovingChar = false;
-                                for (Hexagon currentTile : movingCharacter.getOccupiedTiles()) {
-                                    if (targetTile.getGridPoint().equals(currentTile.getGridPoint())) {
-                                        isCurrentlyOccupiedByMovingChar = true;
-                                        break;
-                                    }
-                                }
+    /**
+     * Builds a flow field, the next step towards a target from every tile, with one search.
+     * @param target Target hexagon
+     * @param size Size category of the creatures following the field
+     * @param useTerrain If true steps cost their terrain, otherwise every step costs one
+     * @param gh GraphicsHandler containing game state
+     * @return The field, or null if the input is missing
+     */
+    public static FlowField flowField(Hexagon target, int size, boolean useTerrain, GraphicsHandler gh) {
+        if (target == null || gh == null) return null;
+        return FLOWS.find(target, size, useTerrain, gh);
+    }
 
-                                if (!isCurrentlyOccupiedByMovingChar) {
-                                    // Check for collisions with other entities
-                                    for (Entity entity : gh.entities) {
-                                        if (entity != movingCharacter) {
-                                            for (Hexagon occupiedTile : entity.getOccupiedTiles()) {
-                                                if (targetTile.getGridPoint().equals(occupiedTile.getGridPoint())) {
-                                                    isValid = false;
-                                                    break;
-                                                }
-                                            }
-                                            if (!isValid) break;
-                                        }
-                                    }
-                                }
-                                if (!isValid) break;
-                            }
-                        } else {
-                            // Simple collision check for non-character movement
-                            isValid = !isOccupiedByEntity(hex, center, gh);
-                        }
-                        
-                        if (isValid) {
-                            available.add(hex);
-                            nextHexagons.add(hex);
-                        }
-                    }
-                }
-            }
-            currentHexagons = nextHexagons;
-        }
-        return available;
+    /**
+     * Plans collision free paths for several entities moving at the same time.
+     * @param agents Entities to move, each standing on a tile
+     * @param goals Goal of every entity, in the same order
+     * @param budgetMillis Time the planning may take
+     * @param gh GraphicsHandler containing game state
+     * @return The paths and end tiles of all entities, or null if the input doesn't match
+     */
+    public static SquadPlanner.Plan squad(List<? extends Entity> agents, List<Hexagon> goals, long budgetMillis, GraphicsHandler gh) {
+        if (agents == null || goals == null || gh == null || agents.size() != goals.size()) return null;
+        return SQUADS.plan(agents, goals, budgetMillis, gh);
     }
 
     /**
@@ -182,43 +127,14 @@ public class AStar {
     public static Hexagon[] getNeighbors(Hexagon hex, GraphicsHandler gh) {
         if (hex == null || gh == null) return new Hexagon[0];
 
-        Point key = hex.getGridPoint();
+        GridTopology topology = gh.getTopology();
         Hexagon[] neighbors = new Hexagon[6];
+        int id = topology.id(hex);
+        if (id < 0) return neighbors;
 
-        int hexX = (int) key.getX();
-        int hexY = (int) key.getY();
-
-        // Create map for quick lookup
-        HashMap<Point, Hexagon> hexMap = new HashMap<>();
-        for (Hexagon h : gh.getHexlist().values()) {
-            hexMap.put(h.getGridPoint(), h);
-        }
-
-        // Offset patterns differ between even and odd rows
-        Point[] neighborPositions;
-        if (hexY % 2 == 0) {  // Even row
-            neighborPositions = new Point[] {
-                new Point(hexX-1, hexY  ),
-                new Point(hexX-1, hexY+1),
-                new Point(hexX  , hexY+1),
-                new Point(hexX+1, hexY  ),
-                new Point(hexX  , hexY-1),
-                new Point(hexX-1, hexY-1)
-            };
-        } else {  // Odd row
-            neighborPositions = new Point[] {
-                new Point(hexX-1, hexY  ),
-                new Point(hexX  , hexY+1),
-                new Point(hexX+1, hexY+1),
-                new Point(hexX+1, hexY  ),
-                new Point(hexX+1, hexY-1),
-                new Point(hexX  , hexY-1)
-            };
-        }
-
-        // Lookup each neighbor position
+        // Lookup each neighbor in the precomputed table
         for (int i = 0; i < 6; i++) {
-            neighbors[i] = hexMap.get(neighborPositions[i]);
+            neighbors[i] = gh.world.tile(topology.neighbor(id, i));
         }
         return neighbors;
     }
@@ -231,33 +147,10 @@ public class AStar {
      * @return The requested neighbor hexagon, or null if doesn't exist
      */
     public static Hexagon getNeighbor(Hexagon hex, int neighborNR, GraphicsHandler gh) {
-        Hexagon neighbor;
-        int hexX = (int) hex.getGridPoint().getX();
-        int hexY = (int) hex.getGridPoint().getY();
-
-        // Different neighbor positions for even/odd rows
-        if (hexY % 2 == 0) {
-            neighbor = switch(neighborNR) {
-                case 1  -> gh.getHexlist().get(hexX-1, hexY  );
-                case 2  -> gh.getHexlist().get(hexX-1, hexY+1);
-                case 3  -> gh.getHexlist().get(hexX  , hexY+1);
-                case 4  -> gh.getHexlist().get(hexX+1, hexY  );
-                case 5  -> gh.getHexlist().get(hexX  , hexY-1);
-                case 6  -> gh.getHexlist().get(hexX-1, hexY-1);
-                default -> null;
-            };
-        } else {
-            neighbor = switch(neighborNR) {
-                case 1  -> gh.getHexlist().get(hexX-1, hexY  );
-                case 2  -> gh.getHexlist().get(hexX  , hexY+1);
-                case 3  -> gh.getHexlist().get(hexX+1, hexY+1);
-                case 4  -> gh.getHexlist().get(hexX+1, hexY  );
-                case 5  -> gh.getHexlist().get(hexX+1, hexY-1);
-                case 6  -> gh.getHexlist().get(hexX  , hexY-1);
-                default -> null;
-            };
-        }
-        return neighbor;
+        GridTopology topology = gh.getTopology();
+        int id = topology.id(hex.getGridPoint().x, hex.getGridPoint().y);
+        if (id < 0 || neighborNR < 1 || neighborNR > 6) return null;
+        return gh.world.tile(topology.neighbor(id, neighborNR - 1));
     }
 
     /**
@@ -267,20 +160,9 @@ public class AStar {
      * @return Distance estimate between the two hexagons
      */
     public static double heuristic(Hexagon a, Hexagon b) {
-        // Convert axial to cube coordinates
-        int ax = (int) a.getGridPoint().getX();
-        int ay = (int) a.getGridPoint().getY();
-        int bx = (int) b.getGridPoint().getX();
-        int by = (int) b.getGridPoint().getY();
-
-        int[] aCube = Calc.toCubeCoordinate(ax,ay);
-        int[] bCube = Calc.toCubeCoordinate(bx,by);
-
-        // Calculate cube coordinate distance
-        return Math.max(Math.max(
-            Math.abs(aCube[0] - bCube[0]),
-            Math.abs(aCube[1] - bCube[1])),
-            Math.abs(aCube[2] - bCube[2]));
+        return Calc.hexDistance(
+            a.getGridPoint().x, a.getGridPoint().y,
+            b.getGridPoint().x, b.getGridPoint().y);
     }
 
     /**
@@ -308,18 +190,8 @@ public class AStar {
         // Find entity occupying source hex (if any)
         Entity sourceEntity = findEntityOccupyingHex(sourceHex, gh);
 
-        // Check all entities except the source entity
-        for (Entity entity : gh.entities) {
-            if (entity == sourceEntity) continue;
-
-            for (Hexagon occupiedTile : entity.getOccupiedTiles()) {
-                if (occupiedTile != null && hex.equals(occupiedTile)) {
-                    return true;
-                }
-            }
-        }
-        
-        return false;
+        Point p = hex.getGridPoint();
+        return gh.occupancy.isBlocked(p.x, p.y, sourceEntity);
     }
 
     /**
@@ -328,69 +200,10 @@ public class AStar {
      * @param gh GraphicsHandler containing entity list
      * @return The occupying entity, or null if none
      */
-    private static Entity findEntityOccupyingHex(Hexagon hex, GraphicsHandler gh) {
-        if (hex == null || gh == null || gh.entities == null) {
+    public static Entity findEntityOccupyingHex(Hexagon hex, GraphicsHandler gh) {
+        if (hex == null || gh == null) {
             return null;
         }
-
-        for (Entity entity : gh.entities) {
-            for (Hexagon occupiedTile : entity.getOccupiedTiles()) {
-                if (occupiedTile != null && hex.getGridPoint().equals(occupiedTile.getGridPoint())) {
-                    return entity;
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Reconstructs the path from start to end using the cameFrom map.
-     * @param start Starting hexagon
-     * @param end Target hexagon
-     * @param cameFrom Map of node origins
-     * @param gh GraphicsHandler containing hexagon map
-     * @return List of hexagons representing the path
-     */
-    private static ArrayList<Hexagon> reconstructPath(Hexagon start, Hexagon end, 
-                                                    HashMap<Point, Point> cameFrom, 
-                                                    GraphicsHandler gh) {
-        ArrayList<Hexagon> path = new ArrayList<>();
-        Point current = end.getGridPoint();
-
-        // Work backwards from end to start
-        while (!current.equals(start.getGridPoint())) {
-            Hexagon hex = gh.getHexlist().get(current.x, current.y);
-            if (hex != null) {
-                path.add(0, hex);  // Add to front to maintain order
-            }
-
-            current = cameFrom.get(current);
-            if (current == null) {
-                break;
-            }
-        }
-
-        // Add start node if path exists
-        if (!path.isEmpty()) {
-            path.add(0, start);
-        }
-
-        return path;
-    }
-
-    /**
-     * Helper class for A* algorithm nodes.
-     * Stores hexagon, movement cost (g), and total cost (f = g + h).
-     */
-    private static class HexNode {
-        Hexagon hex;
-        double gCost;  // Cost from start to this node
-        double fCost;  // Total cost (g + heuristic)
-
-        public HexNode(Hexagon hex, double gCost, double fCost) {
-            this.hex = hex;
-            this.gCost = gCost;
-            this.fCost = fCost;
-        }
+        return gh.occupancy.get(hex);
     }
 }
\ No newline at end of file
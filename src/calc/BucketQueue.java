@@ -0,0 +1,116 @@
+package calc;
+
+import java.util.Arrays;
+
+/**
+ * Monotone priority queue of tile ids for small integer priorities (Dial's algorithm).
+ * Ids are kept in intrusive doubly linked lists, one per priority, in a circular
+ * bucket array. As long as every pushed priority lies within bucketCount - 1 of the
+ * last popped one, push, decrease and pop are all O(1) without any comparisons.
+ */
+public class BucketQueue {
+
+    private final int[] head;            // First id per bucket, -1 if empty
+    private int[] next     = new int[0]; // Next id in the same bucket
+    private int[] prev     = new int[0]; // Previous id in the same bucket, -1 for the head
+    private int[] priority = new int[0]; // Priority per id, -1 if not queued
+
+    private int size = 0;
+    private int cursor = 0;  // Lower bound of all queued priorities
+
+    /**
+     * Creates a queue for priorities that never exceed the last popped one by more than bucketCount - 1.
+     * @param bucketCount Number of buckets
+     */
+    public BucketQueue(int bucketCount) {
+        head = new int[bucketCount];
+        Arrays.fill(head, -1);
+    }
+
+    /**
+     * Grows the per-id arrays so ids below capacity can be queued.
+     * @param capacity Number of ids
+     */
+    public void ensureCapacity(int capacity) {
+        if (priority.length >= capacity) return;
+        clear();
+        next     = new int[capacity];
+        prev     = new int[capacity];
+        priority = new int[capacity];
+        Arrays.fill(priority, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Inserts an id or lowers its priority if it is already queued with a higher one.
+     * @param id Tile id
+     * @param p New priority
+     */
+    public void pushOrDecrease(int id, int p) {
+        int current = priority[id];
+        if (current >= 0) {
+            if (p >= current) return;
+            unlink(id);
+        } else {
+            size++;
+        }
+        if (size == 1 || p < cursor) cursor = p;
+        link(id, p);
+    }
+
+    /**
+     * Removes an id with the lowest priority.
+     * @return The id
+     */
+    public int pop() {
+        int bucket = cursor % head.length;
+        while (head[bucket] < 0) {
+            cursor++;
+            bucket = cursor % head.length;
+        }
+        int id = head[bucket];
+        unlink(id);
+        priority[id] = -1;
+        size--;
+        return id;
+    }
+
+    /**
+     * @return Priority of the id that pop would return next
+     */
+    public int peekPriority() {
+        while (head[cursor % head.length] < 0) cursor++;
+        return cursor;
+    }
+
+    /**
+     * Empties the queue, keeping the per-id state consistent for the next query.
+     */
+    public void clear() {
+        for (int b = 0; b < head.length; b++) {
+            for (int id = head[b]; id >= 0; id = next[id]) priority[id] = -1;
+            head[b] = -1;
+        }
+        size = 0;
+        cursor = 0;
+    }
+
+    private void link(int id, int p) {
+        int bucket = p % head.length;
+        priority[id] = p;
+        prev[id] = -1;
+        next[id] = head[bucket];
+        if (head[bucket] >= 0) prev[head[bucket]] = id;
+        head[bucket] = id;
+    }
+
+    private void unlink(int id) {
+        int bucket = priority[id] % head.length;
+        if (prev[id] >= 0) next[prev[id]] = next[id];
+        else head[bucket] = next[id];
+        if (next[id] >= 0) prev[next[id]] = prev[id];
+    }
+}
@@ -121,6 +121,38 @@ public class Calc {
         return new int[] {x_cube, y_cube, z_cube};
     }
 
+    /**
+     * Calculates the hexagonal distance between two grid coordinates
+     * in the current grid orientation.
+     * @param x1 Row of the first tile
+     * @param y1 Column of the first tile
+     * @param x2 Row of the second tile
+     * @param y2 Column of the second tile
+     * @return Number of tiles between the two coordinates
+     */
+    public static int hexDistance(int x1, int y1, int x2, int y2) {
+        return hexDistance(x1, y1, x2, y2, GraphicsHandler.isFlat);
+    }
+
+    /**
+     * Calculates the hexagonal distance between two grid coordinates.
+     * Works like toCubeCoordinate but without allocating the cube arrays.
+     * Pointy grids shift rows instead of columns, so the axes are swapped.
+     * @param x1 Row of the first tile
+     * @param y1 Column of the first tile
+     * @param x2 Row of the second tile
+     * @param y2 Column of the second tile
+     * @param isFlat Grid orientation
+     * @return Number of tiles between the two coordinates
+     */
+    public static int hexDistance(int x1, int y1, int x2, int y2, boolean isFlat) {
+        if (!isFlat) return hexDistance(y1, x1, y2, x2, true);
+        int dx = (x1 - (y1 >> 1)) - (x2 - (y2 >> 1));
+        int dz = y1 - y2;
+        int dy = -dx - dz;
+        return Math.max(Math.max(Math.abs(dx), Math.abs(dy)), Math.abs(dz));
+    }
+
     /**
      * Converts cube coordinates back to axial coordinates.
      * @param cube Cube coordinates as int array [x, y, z]
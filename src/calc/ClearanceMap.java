@@ -0,0 +1,131 @@
+package calc;
+
+import entities.Entity;
+import java.util.Arrays;
+
+/**
+ * Per-size clearance layer over the world grid.
+ * For every multi-tile size and every anchor tile it counts how many tiles of the
+ * footprint are occupied or lie outside the world, so "can a creature of this size stand
+ * here" is a single array read. The counts are kept up to date by the occupancy index:
+ * whenever a tile becomes occupied or free, every anchor whose footprint covers it is
+ * adjusted, which is at most a dozen writes per size.
+ */
+public final class ClearanceMap {
+
+    // Blocked tile count per shape and world id, shape 0 (single tile) is not stored
+    private final byte[][] blocked = new byte[Footprint.SHAPES][];
+    // Orientation the counts were built for
+    private boolean isFlat;
+
+    /**
+     * Creates a map with no occupied tiles.
+     * @param isFlat Grid orientation
+     */
+    public ClearanceMap(boolean isFlat) {
+        for (int shape = 1; shape < Footprint.SHAPES; shape++) {
+            blocked[shape] = new byte[WorldGrid.ROWS * WorldGrid.COLS];
+        }
+        reset(isFlat);
+    }
+
+    /**
+     * Forgets all occupied tiles and rebuilds the counts for an orientation.
+     * Only anchors next to the world edge start out blocked.
+     * @param isFlat Grid orientation
+     */
+    public void reset(boolean isFlat) {
+        this.isFlat = isFlat;
+        for (int shape = 1; shape < Footprint.SHAPES; shape++) {
+            byte[] counts = blocked[shape];
+            Arrays.fill(counts, (byte) 0);
+            for (int r = 0; r < WorldGrid.ROWS; r++) {
+                // Footprints reach at most two tiles from their anchor
+                boolean edgeRow = r < 2 || r >= WorldGrid.ROWS - 2;
+                for (int c = 0; c < WorldGrid.COLS; c++) {
+                    if (!edgeRow && c >= 2 && c < WorldGrid.COLS - 2) continue;
+                    int row = WorldGrid.FIRST_ROW + r, col = WorldGrid.FIRST_COL + c;
+                    int[] d = Footprint.deltas(shape, Footprint.parity(row, col, isFlat), isFlat);
+                    for (int i = 0; i < d.length; i += 2) {
+                        if (index(row + d[i], col + d[i + 1]) < 0) counts[r * WorldGrid.COLS + c]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Records that a tile became occupied.
+     * @param row Grid row
+     * @param col Grid column
+     */
+    public void occupy(int row, int col) {
+        adjust(row, col, 1);
+    }
+
+    /**
+     * Records that a tile became free.
+     * @param row Grid row
+     * @param col Grid column
+     */
+    public void release(int row, int col) {
+        adjust(row, col, -1);
+    }
+
+    /**
+     * Checks whether a creature can stand on an anchor tile.
+     * Free anchors are answered from the counts alone. Only anchors that are blocked by
+     * something fall back to checking the footprint, since the blocking tiles might all
+     * belong to the ignored entity itself.
+     * @param row Anchor row
+     * @param col Anchor column
+     * @param size Size category
+     * @param ignored Entity that does not count as an obstacle (may be null)
+     * @param occupancy Occupancy the counts belong to
+     * @return True if the whole footprint lies in the world and is free
+     */
+    public boolean fits(int row, int col, int size, Entity ignored, OccupancyIndex occupancy) {
+        int id = index(row, col);
+        if (id < 0) return false;
+
+        int shape = Footprint.shape(size);
+        if (shape == 0) return !occupancy.isBlocked(row, col, ignored);
+        if (blocked[shape][id] == 0) return true;
+        if (ignored == null) return false;
+
+        int[] d = Footprint.deltas(shape, Footprint.parity(row, col, isFlat), isFlat);
+        for (int i = 0; i < d.length; i += 2) {
+            if (index(row + d[i], col + d[i + 1]) < 0) return false;
+            if (occupancy.isBlocked(row + d[i], col + d[i + 1], ignored)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds to the count of every anchor whose footprint covers a tile.
+     */
+    private void adjust(int row, int col, int delta) {
+        if (index(row, col) < 0) return;
+        for (int shape = 1; shape < Footprint.SHAPES; shape++) {
+            for (int parity = 0; parity < 2; parity++) {
+                int[] d = Footprint.deltas(shape, parity, isFlat);
+                for (int i = 0; i < d.length; i += 2) {
+                    // Anchor that would cover the tile with this delta, if it has the matching parity
+                    int anchorRow = row - d[i], anchorCol = col - d[i + 1];
+                    if (Footprint.parity(anchorRow, anchorCol, isFlat) != parity) continue;
+                    int anchor = index(anchorRow, anchorCol);
+                    if (anchor >= 0) blocked[shape][anchor] = (byte) (blocked[shape][anchor] + delta);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return World id of a tile, or -1 if it lies outside the world
+     */
+    private static int index(int row, int col) {
+        int r = row - WorldGrid.FIRST_ROW, c = col - WorldGrid.FIRST_COL;
+        if (r < 0 || c < 0 || r >= WorldGrid.ROWS || c >= WorldGrid.COLS) return -1;
+        return r * WorldGrid.COLS + c;
+    }
+}
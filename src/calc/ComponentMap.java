@@ -0,0 +1,323 @@
+package calc;
+
+import entities.Entity;
+import entities.Wall;
+import fx.Hexagon;
+import java.util.Arrays;
+import main.GraphicsHandler;
+
+/**
+ * Connected components of the world split by walls.
+ * Every tile without a wall gets the label of its component, walls get 0. The labels
+ * are built by one flood fill and then kept up to date from the wall changes the
+ * occupancy logs: a removed wall joins the components around it, an added wall only
+ * searches the component it may have split, stopping as soon as the pieces meet again.
+ * Labels are joined through a union-find over label numbers, so "can this goal be
+ * reached at all" is answered with a few array reads before any search starts, and
+ * unreachable regions can be found per tile.
+ * Characters move all the time and are left to the search, as are multi-tile creatures
+ * that don't fit through a gap; checks never reject a goal a search could reach.
+ */
+public class ComponentMap {
+
+    // Component per world id, 0 for walls, resolved through root
+    private int[] labels = new int[0];
+    // Union-find over labels, a label is a root if it is its own parent
+    private int[] parent = new int[1];
+    private int nextLabel = 1;
+    // Flood fill queue
+    private int[] queue  = new int[0];
+
+    // What the labels were built for, and how many wall changes they include
+    private GridTopology topology;
+    private long wallChanges;
+
+    // Searches started next to an added wall, one per separate run of free neighbors
+    private final int[][] split = new int[3][16];
+    private final int[] splitHead = new int[3], splitTail = new int[3];
+    // Search that visited a tile, valid if the stamp in the high bits matches
+    private int[] visitedBy = new int[0];
+    private int splitStamp = 0;
+    // Searches that met, union-find over the three searches, and groups already relabelled
+    private final int[] group = new int[3];
+    private final boolean[] done = new boolean[3];
+
+    // Components next to the last start, with the tiles of the entity standing there
+    private int startId = -1;
+    private int startEpoch;
+    private int[] startLabels = new int[0];
+    private int startLabelCount = 0;
+    private final int[] moverTiles = new int[Footprint.MAX_TILES];
+    private int moverTileCount = 0;
+
+    /**
+     * Checks whether a goal lies in a component the start can walk into.
+     * The entity on the start tile never blocks itself, so all components touching
+     * its footprint count.
+     * @param start The starting hexagon
+     * @param goal The target hexagon
+     * @param gh GraphicsHandler containing game state
+     * @return False if no path can exist, true if one might
+     */
+    public boolean canReach(Hexagon start, Hexagon goal, GraphicsHandler gh) {
+        refresh(gh);
+        int from = topology.id(start);
+        int to   = topology.id(goal);
+        if (from < 0 || to < 0) return false;
+        if (from != startId || startEpoch != gh.occupancy.getEpoch()) collectStart(from, gh.occupancy);
+
+        if (labels[to] == 0) {
+            // Walls are only reachable if the mover itself is the wall
+            for (int i = 0; i < moverTileCount; i++) {
+                if (moverTiles[i] == to) return true;
+            }
+            return false;
+        }
+        int label = root(labels[to]);
+        for (int i = 0; i < startLabelCount; i++) {
+            if (startLabels[i] == label) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the component of a tile.
+     * @param hex The hexagon
+     * @param gh GraphicsHandler containing game state
+     * @return The label, 0 for walls and tiles outside the world
+     */
+    public int label(Hexagon hex, GraphicsHandler gh) {
+        refresh(gh);
+        int id = topology.id(hex);
+        return id < 0 || labels[id] == 0 ? 0 : root(labels[id]);
+    }
+
+    /**
+     * Applies the wall changes since the last query, or relabels everything if the
+     * orientation changed or more walls changed than the occupancy keeps track of.
+     */
+    private void refresh(GraphicsHandler gh) {
+        GridTopology current = gh.getTopology();
+        OccupancyIndex occupancy = gh.occupancy;
+        long changes = occupancy.getWallChangeCount();
+        if (current == topology && wallChanges == changes) return;
+        startId = -1;
+
+        if (current != topology || changes - wallChanges > OccupancyIndex.WALL_LOG) {
+            topology    = current;
+            wallChanges = changes;
+            relabel(occupancy);
+            return;
+        }
+        for (; wallChanges < changes; wallChanges++) {
+            long key = occupancy.getWallChange(wallChanges);
+            int row = (int) (key >> 32), col = (int) key;
+            int id = topology.id(row, col);
+            if (id < 0) continue;
+            // The log only says the tile changed, the occupancy knows what is there now
+            boolean wall = occupancy.get(row, col) instanceof Wall;
+            if (wall && labels[id] != 0) addWall(id);
+            else if (!wall && labels[id] == 0) removeWall(id);
+        }
+        // Splits and joins leave dead labels behind, start over before they pile up
+        if (nextLabel > topology.size()) relabel(occupancy);
+    }
+
+    /**
+     * Labels all tiles with one flood fill.
+     */
+    private void relabel(OccupancyIndex occupancy) {
+        int size = topology.size();
+        if (labels.length < size) {
+            labels    = new int[size];
+            queue     = new int[size];
+            visitedBy = new int[size];
+        }
+        // -1 marks tiles without a wall that have not been labelled yet
+        for (int id = 0; id < size; id++) {
+            labels[id] = occupancy.get(topology.row(id), topology.col(id)) instanceof Wall ? 0 : -1;
+        }
+
+        nextLabel = 1;
+        for (int seed = 0; seed < size; seed++) {
+            if (labels[seed] != -1) continue;
+            int label = newLabel();
+            int head = 0, tail = 0;
+            labels[seed] = label;
+            queue[tail++] = seed;
+            while (head < tail) {
+                int id = queue[head++];
+                for (int dir = 0; dir < 6; dir++) {
+                    int neighbor = topology.neighbor(id, dir);
+                    if (neighbor < 0 || labels[neighbor] != -1) continue;
+                    labels[neighbor] = label;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    /**
+     * A wall was taken away, its tile joins every component around it.
+     */
+    private void removeWall(int id) {
+        int label = 0;
+        for (int dir = 0; dir < 6; dir++) {
+            int neighbor = topology.neighbor(id, dir);
+            if (neighbor < 0 || labels[neighbor] == 0) continue;
+            int other = root(labels[neighbor]);
+            if (label == 0) label = other;
+            else if (other != label) parent[other] = label;
+        }
+        labels[id] = label != 0 ? label : newLabel();
+    }
+
+    /**
+     * A wall was put on a free tile. If its free neighbors form more than one run around
+     * it, the component may have split: one search per run spreads out in turns until
+     * the searches meet. A group of searches that runs out of tiles without meeting the
+     * others is cut off and gets a new label, the rest keeps the old one.
+     */
+    private void addWall(int id) {
+        labels[id] = 0;
+
+        // Free neighbors next to each other on the ring are connected through each other
+        int runs = 0;
+        for (int dir = 0; dir < 6; dir++) {
+            if (isFree(topology.neighbor(id, dir)) && !isFree(topology.neighbor(id, (dir + 5) % 6))) {
+                startSplit(runs++, topology.neighbor(id, dir));
+            }
+        }
+        if (runs < 2) return;
+
+        int groups = runs;
+        while (groups > 1) {
+            for (int s = 0; s < runs && groups > 1; s++) {
+                if (splitHead[s] == splitTail[s]) continue;
+                int current = split[s][splitHead[s]++];
+                for (int dir = 0; dir < 6; dir++) {
+                    int neighbor = topology.neighbor(current, dir);
+                    if (neighbor < 0 || labels[neighbor] == 0) continue;
+                    if ((visitedBy[neighbor] >>> 2) != splitStamp) {
+                        visit(s, neighbor);
+                    } else {
+                        int a = group(s), b = group((visitedBy[neighbor] & 3) - 1);
+                        if (a != b) {
+                            group[b] = a;
+                            groups--;
+                        }
+                    }
+                }
+            }
+            // A group whose searches all ran out is a component of its own
+            for (int s = 0; s < runs && groups > 1; s++) {
+                if (done[s] || group(s) != s || !exhausted(s, runs)) continue;
+                int label = newLabel();
+                for (int t = 0; t < runs; t++) {
+                    if (group(t) != s) continue;
+                    for (int i = 0; i < splitTail[t]; i++) labels[split[t][i]] = label;
+                }
+                done[s] = true;
+                groups--;
+            }
+        }
+    }
+
+    private boolean isFree(int id) {
+        return id >= 0 && labels[id] != 0;
+    }
+
+    /**
+     * Starts one of the searches next to an added wall, the first search also starts a new stamp.
+     */
+    private void startSplit(int s, int seed) {
+        if (s == 0 && ++splitStamp == 1 << 29) {
+            Arrays.fill(visitedBy, 0);
+            splitStamp = 1;
+        }
+        splitHead[s] = splitTail[s] = 0;
+        group[s] = s;
+        done[s] = false;
+        visit(s, seed);
+    }
+
+    private void visit(int s, int id) {
+        visitedBy[id] = (splitStamp << 2) | (s + 1);
+        if (splitTail[s] == split[s].length) split[s] = Arrays.copyOf(split[s], splitTail[s] * 2);
+        split[s][splitTail[s]++] = id;
+    }
+
+    private int group(int s) {
+        while (group[s] != s) s = group[s];
+        return s;
+    }
+
+    /**
+     * @return True if every search in the group of s has run out of tiles
+     */
+    private boolean exhausted(int s, int runs) {
+        for (int t = 0; t < runs; t++) {
+            if (group(t) == s && splitHead[t] < splitTail[t]) return false;
+        }
+        return true;
+    }
+
+    private int newLabel() {
+        if (nextLabel == parent.length) parent = Arrays.copyOf(parent, parent.length * 2);
+        parent[nextLabel] = nextLabel;
+        return nextLabel++;
+    }
+
+    /**
+     * Finds the label a label was joined into, halving the way on each lookup.
+     */
+    private int root(int label) {
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    /**
+     * Collects the components a start tile can walk into.
+     */
+    private void collectStart(int from, OccupancyIndex occupancy) {
+        startId = from;
+        startEpoch = occupancy.getEpoch();
+        startLabelCount = 0;
+        moverTileCount = 0;
+
+        int row = topology.row(from), col = topology.col(from);
+        Entity mover = occupancy.get(row, col);
+        if (mover == null) {
+            moverTiles[moverTileCount++] = from;
+        } else {
+            // Anchor of the mover, its footprint may cover more than the start tile
+            int anchorRow = mover.getTile().getGridPoint().x, anchorCol = mover.getTile().getGridPoint().y;
+            int anchor = topology.id(anchorRow, anchorCol);
+            if (anchor < 0) anchor = from;
+            moverTileCount = Footprint.apply(anchor, mover.getSize(), topology, moverTiles);
+        }
+
+        if (startLabels.length < moverTileCount * 7) startLabels = new int[moverTileCount * 7];
+        for (int i = 0; i < moverTileCount; i++) {
+            int id = moverTiles[i];
+            if (id < 0) continue;
+            addStartLabel(labels[id]);
+            for (int dir = 0; dir < 6; dir++) {
+                int neighbor = topology.neighbor(id, dir);
+                if (neighbor >= 0) addStartLabel(labels[neighbor]);
+            }
+        }
+    }
+
+    private void addStartLabel(int label) {
+        if (label == 0) return;
+        label = root(label);
+        for (int i = 0; i < startLabelCount; i++) {
+            if (startLabels[i] == label) return;
+        }
+        startLabels[startLabelCount++] = label;
+    }
+}
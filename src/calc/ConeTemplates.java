@@ -0,0 +1,91 @@
+package calc;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cone shapes as lists of cube offsets from the origin tile.
+ * A template holds every tile within a hex distance whose center lies inside the cone,
+ * measured in a unit layout, so it depends only on the radius, the direction, the
+ * aperture and the orientation, never on the origin or the zoom. Templates are built
+ * the first time they are needed and kept in a small LRU cache, evaluating a cone is
+ * then only translating its offsets to the origin.
+ */
+public class ConeTemplates {
+
+    // Angular steps of directions and apertures in degrees
+    public static final int STEP = 5;
+    // Tiles exactly on an edge of the cone are inside
+    private static final double EPSILON = 1e-6;
+
+    private record Key(int radius, int direction, int aperture, boolean isFlat) {}
+
+    private final Map<Key, int[]> templates;
+
+    /**
+     * Creates a cache.
+     * @param capacity Maximum number of cached templates
+     */
+    public ConeTemplates(int capacity) {
+        // Access ordered, so the eldest entry is the least recently used one
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the template of a cone.
+     * @param radius Range in tiles (hex distance)
+     * @param direction Center direction in steps of STEP degrees, 0 is east, counter-clockwise
+     * @param aperture Angular width in steps of STEP degrees
+     * @param isFlat Grid orientation
+     * @return Cube offsets (x, y, z) of the covered tiles, consecutive in one array, the origin is not included
+     */
+    public int[] get(int radius, int direction, int aperture, boolean isFlat) {
+        Key key = new Key(radius, Math.floorMod(direction, 360 / STEP), aperture, isFlat);
+        int[] template = templates.get(key);
+        if (template == null) {
+            template = build(key);
+            templates.put(key, template);
+        }
+        return template;
+    }
+
+    private static int[] build(Key key) {
+        int n = key.radius();
+        double start = key.direction() * STEP - key.aperture() * STEP / 2.0;
+        double width = key.aperture() * STEP;
+
+        int[] offsets = new int[3 * (3 * n * (n + 1))];
+        int count = 0;
+        for (int dx = -n; dx <= n; dx++) {
+            for (int dy = Math.max(-n, -dx - n); dy <= Math.min(n, -dx + n); dy++) {
+                int dz = -dx - dy;
+                if (dx == 0 && dz == 0) continue;
+
+                // Center in a unit layout, cube x/z are the axial axes like in Calc.toCubeCoordinate
+                double px, py;
+                if (key.isFlat()) {
+                    px = 1.5 * dz;
+                    py = Math.sqrt(3) * (dx + dz / 2.0);
+                } else {
+                    px = Math.sqrt(3) * (dx + dz / 2.0);
+                    py = 1.5 * dz;
+                }
+                // Screen y grows downward, angles grow counter-clockwise
+                double angle = Math.toDegrees(Math.atan2(-py, px));
+                double from = ((angle - start) % 360 + 360) % 360;
+                if (from <= width + EPSILON || from >= 360 - EPSILON) {
+                    offsets[count++] = dx;
+                    offsets[count++] = dy;
+                    offsets[count++] = dz;
+                }
+            }
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+}
@@ -0,0 +1,172 @@
+package calc;
+
+import fx.Hexagon;
+import java.util.ArrayList;
+import java.util.Arrays;
+import main.GraphicsHandler;
+
+/**
+ * Result of a single-source movement search.
+ * Holds the reachable tile ids together with the movement cost and the predecessor on a
+ * cheapest path for each of them, so the range display, the path preview and the final
+ * move can all be answered from one search. Only the reached tiles are stored, an open
+ * addressing table from id to their index replaces arrays over the whole world.
+ */
+public class DistanceField {
+
+    // World and topology the ids refer to
+    private final WorldGrid world;
+    private final GridTopology topology;
+    // Obstacles and terrain the costs were calculated on, with their epochs at that time
+    private final OccupancyIndex occupancy;
+    private final TerrainLayer terrain;
+    private final int occupancyEpoch, terrainEpoch;
+    // Id of the tile the search started from
+    private final int start;
+    // Reachable tile ids in the order they were found (the start tile is not included)
+    private final int[] ids;
+    // Movement cost per reachable tile, same order as ids
+    private final int[] cost;
+    // Index of the previous tile on a cheapest path, -1 for the start, same order as ids
+    private final int[] predecessor;
+    // Open addressing table id -> index into the arrays above, a slot is empty if its id is -1
+    private final int[] slotId;
+    private final int[] slotIndex;
+    // Reachable tiles in the order they were found
+    private final ArrayList<Hexagon> tiles;
+    // Movement budget the field was calculated for
+    private final int speed;
+
+    DistanceField(GraphicsHandler gh, int start, int[] ids, int[] cost, int[] predecessor,
+                  ArrayList<Hexagon> tiles, int speed) {
+        this.world          = gh.world;
+        this.topology       = world.getTopology();
+        this.occupancy      = gh.occupancy;
+        this.terrain        = gh.terrain;
+        this.occupancyEpoch = occupancy.getEpoch();
+        this.terrainEpoch   = terrain.getEpoch();
+        this.start          = start;
+        this.ids            = ids;
+        this.cost           = cost;
+        this.predecessor    = predecessor;
+        this.tiles          = tiles;
+        this.speed          = speed;
+
+        int capacity = Integer.highestOneBit(Math.max(ids.length, 1)) << 2;
+        this.slotId    = new int[capacity];
+        this.slotIndex = new int[capacity];
+        Arrays.fill(slotId, -1);
+        int mask = capacity - 1;
+        for (int i = 0; i < ids.length; i++) {
+            int slot = (ids[i] * 0x9E3779B9) & mask;
+            while (slotId[slot] >= 0) slot = (slot + 1) & mask;
+            slotId[slot]    = ids[i];
+            slotIndex[slot] = i;
+        }
+    }
+
+    /**
+     * Creates an empty field.
+     * @param gh GraphicsHandler containing game state
+     * @param start Id of the start tile, may be -1
+     * @return A field without reachable tiles
+     */
+    static DistanceField empty(GraphicsHandler gh, int start) {
+        return new DistanceField(gh, start, new int[0], new int[0], new int[0], new ArrayList<>(), 0);
+    }
+
+    /**
+     * Checks whether a hexagon can be reached.
+     * @param hex Hexagon to check
+     * @return True if the hexagon is within the range
+     */
+    public boolean contains(Hexagon hex) {
+        return indexOf(hex) >= 0;
+    }
+
+    /**
+     * Checks whether the field was calculated from a hexagon on the current grid.
+     * @param hex Hexagon to check
+     * @return True if paths of this field start at the hexagon and are still valid
+     */
+    public boolean startsAt(Hexagon hex) {
+        return isCurrent() && start >= 0 && topology.id(hex) == start;
+    }
+
+    /**
+     * Checks whether the costs still hold. Turning the grid, adding, moving or removing
+     * entities and painting terrain all invalidate the field.
+     * @return True if nothing the search depended on changed since
+     */
+    public boolean isCurrent() {
+        return topology == world.getTopology()
+            && occupancy.getEpoch() == occupancyEpoch && terrain.getEpoch() == terrainEpoch;
+    }
+
+    /**
+     * Gets the movement cost needed to reach a hexagon.
+     * @param hex Target hexagon
+     * @return The cost, or -1 if the hexagon is not reachable
+     */
+    public int getCost(Hexagon hex) {
+        int i = indexOf(hex);
+        return i < 0 ? -1 : cost[i];
+    }
+
+    /**
+     * Gets the movement left after moving to a hexagon.
+     * @param hex Target hexagon
+     * @return Remaining movement, or -1 if the hexagon is not reachable
+     */
+    public int getRemaining(Hexagon hex) {
+        int c = getCost(hex);
+        return c < 0 ? -1 : speed - c;
+    }
+
+    /**
+     * Walks the predecessors back from a hexagon to the start.
+     * @param hex Target hexagon
+     * @return The cheapest path including both ends, or null if the hexagon is not reachable
+     */
+    public ArrayList<Hexagon> pathTo(Hexagon hex) {
+        int target = indexOf(hex);
+        if (target < 0) return null;
+
+        int length = 2;
+        for (int i = predecessor[target]; i >= 0; i = predecessor[i]) length++;
+
+        Hexagon[] path = new Hexagon[length];
+        path[0] = world.tile(start);
+        int i = target;
+        for (int k = length - 1; k > 0; k--) {
+            path[k] = world.tile(ids[i]);
+            i = predecessor[i];
+        }
+        return new ArrayList<>(Arrays.asList(path));
+    }
+
+    /**
+     * Gets the position of a hexagon in the stored arrays.
+     * @return The index, or -1 if the hexagon is not reachable
+     */
+    private int indexOf(Hexagon hex) {
+        int id = topology.id(hex);
+        if (id < 0) return -1;
+        int mask = slotId.length - 1;
+        for (int slot = (id * 0x9E3779B9) & mask; slotId[slot] >= 0; slot = (slot + 1) & mask) {
+            if (slotId[slot] == id) return slotIndex[slot];
+        }
+        return -1;
+    }
+
+    /**
+     * @return All reachable hexagons
+     */
+    public ArrayList<Hexagon> getTiles() {
+        return tiles;
+    }
+
+    public int getSpeed() {
+        return speed;
+    }
+}
@@ -0,0 +1,232 @@
+package calc;
+
+import entities.Wall;
+import fx.Hexagon;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Field of view over the world grid, walls are opaque and everything else is not.
+ * Uses ring-based shadowcasting: the rings around the origin are walked outwards and
+ * every tile covers an equal share of the full turn of its ring, so ring n is split
+ * into 6n arcs. Opaque tiles add their arc to a sorted list of shadows, and each ring
+ * only visits the tiles inside the gaps between the shadows, so the work is linear in
+ * the number of visible tiles instead of the area of the radius. Open tiles are visible
+ * if the middle of their arc is lit, walls if any part of it is, so the faces of walls
+ * around a visible area show up as well.
+ * Results are cached per origin, radius and wall layout, since they are asked for on
+ * every repaint while they only change when a wall is placed or removed.
+ */
+public class FieldOfView {
+
+    // Axial neighbor offsets (q, r), clockwise
+    private static final int[][] DIRECTIONS = {{1, 0}, {1, -1}, {0, -1}, {-1, 0}, {-1, 1}, {0, 1}};
+    // Ring corners as multiples of the radius, side i starts at corner i and walks direction i
+    private static final int[][] CORNERS = new int[6][];
+    // Tolerance for arcs that only touch
+    private static final double EPSILON = 1e-9;
+
+    public static final int MAX_RADIUS = 128;
+
+    static {
+        CORNERS[0] = DIRECTIONS[4];
+        for (int i = 1; i < 6; i++) {
+            CORNERS[i] = new int[] {CORNERS[i - 1][0] + DIRECTIONS[i - 1][0], CORNERS[i - 1][1] + DIRECTIONS[i - 1][1]};
+        }
+    }
+
+    private record Key(int origin, int radius, boolean isFlat, int opacityEpoch) {}
+
+    private final WorldGrid world;
+    private final Map<Key, TileSet> entries;
+
+    // Shadows as sorted, disjoint arcs [start, end] in fractions of a full turn
+    private double[] shadowStart = new double[16];
+    private double[] shadowEnd   = new double[16];
+    private int shadowCount = 0;
+    // Lit arcs of the current ring, the complement of the shadows
+    private double[] gapStart = new double[16];
+    private double[] gapEnd   = new double[16];
+    // Arcs of the opaque tiles found in the current ring, as start/end pairs
+    private double[] opaque = new double[16];
+
+    /**
+     * Creates an engine.
+     * @param world World grid the results refer to
+     * @param capacity Maximum number of cached results
+     */
+    public FieldOfView(WorldGrid world, int capacity) {
+        this.world = world;
+        // Access ordered, so the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, TileSet> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Calculates the tiles visible from a hexagon.
+     * @param origin Tile of the observer
+     * @param radius Maximum distance in tiles
+     * @param occupancy Occupancy to take the walls from
+     * @return The visible tiles including the origin, shared with the cache so it must not be modified
+     */
+    public TileSet compute(Hexagon origin, int radius, OccupancyIndex occupancy) {
+        GridTopology topology = world.getTopology();
+        radius = Math.max(0, Math.min(radius, MAX_RADIUS));
+        Key key = new Key(topology.id(origin), radius, topology.isFlat(), occupancy.getOpacityEpoch());
+
+        TileSet visible = entries.get(key);
+        if (visible == null) {
+            visible = cast(origin, radius, topology, occupancy);
+            entries.put(key, visible);
+        }
+        return visible;
+    }
+
+    /**
+     * Checks whether a tile blocks the view.
+     * @param row Grid row
+     * @param col Grid column
+     * @param occupancy Occupancy to take the walls from
+     * @return True if a wall stands on the tile
+     */
+    public static boolean isOpaque(int row, int col, OccupancyIndex occupancy) {
+        return occupancy.get(row, col) instanceof Wall;
+    }
+
+    /**
+     * Runs the shadowcasting for one origin.
+     */
+    private TileSet cast(Hexagon origin, int radius, GridTopology topology, OccupancyIndex occupancy) {
+        TileSet visible = new TileSet(world);
+        int originId = topology.id(origin);
+        if (originId < 0) return visible;
+        visible.add(origin);
+
+        boolean isFlat = topology.isFlat();
+        int row = topology.row(originId), col = topology.col(originId);
+        int q0 = isFlat ? col : col - (row >> 1);
+        int r0 = isFlat ? row - (col >> 1) : row;
+
+        shadowCount = 0;
+        for (int ring = 1; ring <= radius; ring++) {
+            int tiles = 6 * ring;
+            int gaps = collectGaps();
+            if (gaps == 0) break;  // Everything is in shadow
+
+            // Shadows of this ring only apply from the next ring on
+            int added = 0;
+            for (int g = 0; g < gaps; g++) {
+                // Tiles whose arc [(i - 0.5) / tiles, (i + 0.5) / tiles] overlaps the gap
+                int first = (int) Math.floor(gapStart[g] * tiles + 0.5 + EPSILON);
+                int last  = (int) Math.ceil(gapEnd[g] * tiles - 0.5 - EPSILON);
+                for (int i = first; i <= last; i++) {
+                    int index = Math.floorMod(i, tiles);
+                    int side = index / ring, step = index % ring;
+                    int q = q0 + CORNERS[side][0] * ring + DIRECTIONS[side][0] * step;
+                    int r = r0 + CORNERS[side][1] * ring + DIRECTIONS[side][1] * step;
+                    int tileRow = isFlat ? r + (q >> 1) : r;
+                    int tileCol = isFlat ? q : q + (r >> 1);
+
+                    int id = topology.id(tileRow, tileCol);
+                    // Tiles outside the world are neither visible nor transparent
+                    boolean blocks = id < 0 || isOpaque(tileRow, tileCol, occupancy);
+                    // Open tiles need the middle of their arc to be lit
+                    double center = (double) i / tiles;
+                    boolean lit = center >= gapStart[g] - EPSILON && center <= gapEnd[g] + EPSILON;
+                    if (id >= 0 && (blocks || lit)) visible.add(world.tile(id));
+                    if (blocks) {
+                        if (added * 2 == opaque.length) opaque = Arrays.copyOf(opaque, added * 4);
+                        opaque[added * 2]     = (i - 0.5) / tiles;
+                        opaque[added * 2 + 1] = (i + 0.5) / tiles;
+                        added++;
+                    }
+                }
+            }
+            for (int i = 0; i < added; i++) addShadow(opaque[i * 2], opaque[i * 2 + 1]);
+        }
+        return visible;
+    }
+
+    /**
+     * Fills the gap arrays with the lit parts of the turn.
+     * @return Number of gaps
+     */
+    private int collectGaps() {
+        if (gapStart.length < shadowCount + 1) {
+            gapStart = new double[shadowCount + 1];
+            gapEnd   = new double[shadowCount + 1];
+        }
+        int gaps = 0;
+        double from = 0;
+        for (int i = 0; i < shadowCount; i++) {
+            if (shadowStart[i] > from + EPSILON) {
+                gapStart[gaps] = from;
+                gapEnd[gaps++] = shadowStart[i];
+            }
+            from = Math.max(from, shadowEnd[i]);
+        }
+        if (from < 1 - EPSILON) {
+            gapStart[gaps] = from;
+            gapEnd[gaps++] = 1;
+        }
+        return gaps;
+    }
+
+    /**
+     * Adds an arc to the shadows, splitting it where it wraps around and merging it
+     * with the shadows it overlaps or touches.
+     */
+    private void addShadow(double start, double end) {
+        if (start < 0) {
+            insertShadow(start + 1, 1);
+            start = 0;
+        }
+        if (end > 1) {
+            insertShadow(0, end - 1);
+            end = 1;
+        }
+        insertShadow(start, end);
+    }
+
+    private void insertShadow(double start, double end) {
+        // First shadow that ends at or after the new one starts
+        int lo = 0, hi = shadowCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (shadowEnd[mid] < start - EPSILON) lo = mid + 1;
+            else hi = mid;
+        }
+        // Shadows overlapping the new one are merged into it
+        int last = lo;
+        while (last < shadowCount && shadowStart[last] <= end + EPSILON) {
+            start = Math.min(start, shadowStart[last]);
+            end   = Math.max(end, shadowEnd[last]);
+            last++;
+        }
+        int removed = last - lo;
+        if (removed == 0 && shadowCount == shadowStart.length) {
+            shadowStart = Arrays.copyOf(shadowStart, shadowCount * 2);
+            shadowEnd   = Arrays.copyOf(shadowEnd, shadowCount * 2);
+        }
+        int shift = 1 - removed;
+        if (shift != 0) {
+            System.arraycopy(shadowStart, last, shadowStart, last + shift, shadowCount - last);
+            System.arraycopy(shadowEnd,   last, shadowEnd,   last + shift, shadowCount - last);
+            shadowCount += shift;
+        }
+        shadowStart[lo] = start;
+        shadowEnd[lo]   = end;
+    }
+
+    /**
+     * Drops all cached results.
+     */
+    public void clear() {
+        entries.clear();
+    }
+}
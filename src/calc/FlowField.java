@@ -0,0 +1,87 @@
+package calc;
+
+import fx.Hexagon;
+
+/**
+ * Directions towards one target from every tile, the result of a single reverse search.
+ * Each tile stores which of its six neighbors is the next step on a cheapest path to the
+ * target, one byte per tile, so any number of tokens can follow the field with one array
+ * read per step instead of searching on their own.
+ */
+public class FlowField {
+
+    // Direction of tiles that can't reach the target, and of the target itself
+    public static final byte NONE = -1;
+
+    // World and topology the ids refer to
+    private final WorldGrid world;
+    private final GridTopology topology;
+    // Id of the target tile
+    private final int target;
+    // Size category the field was calculated for
+    private final int size;
+    // Whether steps cost their terrain or one each
+    private final boolean weighted;
+    // Neighbor direction of the next step per id, NONE if there is none
+    private final byte[] direction;
+    // Number of tiles that lead to the target
+    private final int count;
+
+    FlowField(WorldGrid world, int target, int size, boolean weighted, byte[] direction, int count) {
+        this.world     = world;
+        this.topology  = world.getTopology();
+        this.target    = target;
+        this.size      = size;
+        this.weighted  = weighted;
+        this.direction = direction;
+        this.count     = count;
+    }
+
+    /**
+     * Gets the direction of the next step from a hexagon.
+     * @param hex Hexagon to look up
+     * @return Neighbor direction 0-5 as in GridTopology.neighbor, or NONE
+     */
+    public int getDirection(Hexagon hex) {
+        if (!isValid()) return NONE;
+        int id = topology.id(hex);
+        return id < 0 ? NONE : direction[id];
+    }
+
+    /**
+     * Gets the next step from a hexagon towards the target.
+     * @param hex Hexagon to look up
+     * @return The neighbor to step onto, or null on the target and on tiles that can't reach it
+     */
+    public Hexagon next(Hexagon hex) {
+        int dir = getDirection(hex);
+        return dir == NONE ? null : world.tile(topology.neighbor(topology.id(hex), dir));
+    }
+
+    /**
+     * Checks whether the field still matches the grid, turning the grid invalidates it.
+     * @return True if the ids of the field refer to the current topology
+     */
+    public boolean isValid() {
+        return topology == world.getTopology();
+    }
+
+    public Hexagon getTarget() {
+        return world.tile(target);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isWeighted() {
+        return weighted;
+    }
+
+    /**
+     * @return Number of tiles that lead to the target, the target not included
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,124 @@
+package calc;
+
+import entities.Character;
+import entities.Entity;
+import fx.Hexagon;
+import java.util.Arrays;
+import main.GraphicsHandler;
+
+/**
+ * Reverse Dijkstra search that builds flow fields.
+ * The search starts on the target and works outwards; every tile it reaches points back
+ * at the neighbor it was reached from. Entering a tile costs its terrain cost (the highest
+ * one under the footprint for larger creatures), or one per step if terrain is ignored.
+ * Walls and other entities block, characters don't: the tokens following the field are
+ * characters themselves and keep moving, they only check the next tile when they step.
+ */
+public class FlowFieldFinder {
+
+    // Per-tile state, indexed by topology id
+    private int[] seen    = new int[0];  // Generation in which cost was written
+    private int[] settled = new int[0];  // Generation in which the tile was expanded
+    private int[] cost    = new int[0];  // Cost to the target, valid if seen matches
+    private int[] checked = new int[0];  // Generation in which step was written
+    private int[] step    = new int[0];  // Cost of stepping onto the tile, -1 if blocked
+    private int generation = 0;
+
+    // Frontier keyed by cost, a step adds at most MAX_COST
+    private final BucketQueue frontier = new BucketQueue(TerrainLayer.MAX_COST + 1);
+
+    // Scratch buffer for footprint ids
+    private final int[] footprint = new int[Footprint.MAX_TILES];
+
+    /**
+     * Builds the flow field towards a target.
+     * @param target Target hexagon, the field leads every tile that can reach it there
+     * @param size Size category of the creatures following the field
+     * @param useTerrain If true steps cost their terrain, otherwise the field follows the fewest steps
+     * @param gh GraphicsHandler containing game state
+     * @return The field, empty if the target lies outside the grid
+     */
+    public FlowField find(Hexagon target, int size, boolean useTerrain, GraphicsHandler gh) {
+        GridTopology topology = gh.getTopology();
+        int start = topology.id(target);
+        byte[] direction = new byte[topology.size()];
+        Arrays.fill(direction, FlowField.NONE);
+        if (start < 0) return new FlowField(gh.world, start, size, useTerrain, direction, 0);
+
+        prepare(topology.size());
+        int count = 0;
+
+        seen[start] = generation;
+        cost[start] = 0;
+        frontier.pushOrDecrease(start, 0);
+
+        while (!frontier.isEmpty()) {
+            int current = frontier.pop();
+            settled[current] = generation;
+            if (current != start) count++;
+
+            // The way from a neighbor leads onto this tile, so this tile's cost is paid.
+            // Only the target can be blocked, e.g. a wall, its neighbors are then one step away
+            int enter = Math.max(step(current, topology, size, useTerrain, gh), 1);
+            for (int dir = 0; dir < 6; dir++) {
+                int neighbor = topology.neighbor(current, dir);
+                if (neighbor < 0 || settled[neighbor] == generation) continue;
+                if (step(neighbor, topology, size, useTerrain, gh) < 0) continue;
+
+                int c = cost[current] + enter;
+                if (seen[neighbor] == generation && c >= cost[neighbor]) continue;
+
+                seen[neighbor] = generation;
+                cost[neighbor] = c;
+                // Directions are clockwise, so the one back to this tile is opposite
+                direction[neighbor] = (byte) ((dir + 3) % 6);
+                frontier.pushOrDecrease(neighbor, c);
+            }
+        }
+        return new FlowField(gh.world, start, size, useTerrain, direction, count);
+    }
+
+    /**
+     * Cost of stepping onto a tile, computed once per search.
+     * @return The cost, or -1 if the footprint leaves the grid or hits something other than a character
+     */
+    private int step(int id, GridTopology topology, int size, boolean useTerrain, GraphicsHandler gh) {
+        if (checked[id] == generation) return step[id];
+        checked[id] = generation;
+        step[id] = -1;
+
+        int n = Footprint.apply(id, size, topology, footprint);
+        for (int i = 0; i < n; i++) {
+            if (footprint[i] < 0) return -1;
+            Entity e = gh.occupancy.get(topology.row(footprint[i]), topology.col(footprint[i]));
+            if (e != null && !(e instanceof Character)) return -1;
+        }
+        int row = topology.row(id), col = topology.col(id);
+        if (!useTerrain) step[id] = 1;
+        else if (size <= Character.NORMAL) step[id] = gh.terrain.cost(row, col);
+        else step[id] = gh.terrain.footprintCost(row, col, size, topology.isFlat());
+        return step[id];
+    }
+
+    /**
+     * Grows the arrays if needed and starts a new generation.
+     * @param size Number of ids in the topology
+     */
+    private void prepare(int size) {
+        if (cost.length < size) {
+            seen    = new int[size];
+            settled = new int[size];
+            cost    = new int[size];
+            checked = new int[size];
+            step    = new int[size];
+            frontier.ensureCapacity(size);
+            generation = 0;
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(settled, 0);
+            Arrays.fill(checked, 0);
+            generation = 1;
+        }
+    }
+}
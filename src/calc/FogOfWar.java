@@ -0,0 +1,210 @@
+package calc;
+
+import entities.Entity;
+import fx.Hexagon;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Persistent fog of war over the world grid.
+ * Keeps two bits per world tile, explored and currently visible, plus how many viewers
+ * see each tile. Every viewer remembers the field of view it contributed, so when one
+ * token moves only that token's view is recalculated and only the tiles that entered or
+ * left it are touched. Tiles whose state changed are collected for the renderer, which
+ * can then redraw just those instead of the whole fog.
+ */
+public class FogOfWar {
+
+    // Sight distance of every viewer in tiles
+    public static final int SIGHT_RADIUS = 24;
+    // More changes than this are reported as "everything changed"
+    private static final int MAX_CHANGES = 4096;
+
+    private final WorldGrid world;
+    private final FieldOfView fieldOfView;
+
+    private final BitSet explored = new BitSet();
+    private final BitSet visible  = new BitSet();
+    // Number of viewers seeing each world id
+    private final short[] viewers = new short[WorldGrid.ROWS * WorldGrid.COLS];
+
+    // Field of view each viewer currently contributes, and the tile it was cast from
+    private final Map<Entity, TileSet> views  = new IdentityHashMap<>();
+    private final Map<Entity, Integer> origin = new IdentityHashMap<>();
+    private int opacityEpoch = -1;
+    private boolean isFlat;
+
+    // World ids whose state changed since the renderer last looked
+    private int[] changes = new int[64];
+    private int changeCount = 0;
+    private boolean changedAll = true;
+
+    private boolean enabled = false;
+
+    /**
+     * Creates an empty fog, nothing explored yet.
+     * @param world World grid the tiles belong to
+     * @param fieldOfView Engine used for the views
+     */
+    public FogOfWar(WorldGrid world, FieldOfView fieldOfView) {
+        this.world = world;
+        this.fieldOfView = fieldOfView;
+    }
+
+    /**
+     * Adds a viewer whose field of view lifts the fog.
+     * @param e The viewer
+     * @param occupancy Occupancy to take the walls from
+     */
+    public void addViewer(Entity e, OccupancyIndex occupancy) {
+        if (e == null || e.getTile() == null || views.containsKey(e)) return;
+        views.put(e, new TileSet(world));
+        update(e, occupancy);
+    }
+
+    /**
+     * Removes a viewer, the tiles only it could see fall back to explored.
+     * @param e The viewer
+     */
+    public void removeViewer(Entity e) {
+        TileSet old = views.remove(e);
+        origin.remove(e);
+        if (old == null) return;
+        for (Hexagon h : old) hide(world.getTopology().id(h));
+    }
+
+    /**
+     * Recalculates one viewer after it moved, applying only the difference to its old view.
+     * @param e The viewer
+     * @param occupancy Occupancy to take the walls from
+     */
+    public void update(Entity e, OccupancyIndex occupancy) {
+        TileSet old = views.get(e);
+        if (old == null || e.getTile() == null) return;
+        GridTopology topology = world.getTopology();
+        TileSet now = fieldOfView.compute(e.getTile(), SIGHT_RADIUS, occupancy);
+        origin.put(e, topology.id(e.getTile()));
+        if (now == old) return;
+
+        for (Hexagon h : now) {
+            if (!old.contains(h)) show(topology.id(h));
+        }
+        for (Hexagon h : old) {
+            if (!now.contains(h)) hide(topology.id(h));
+        }
+        views.put(e, now);
+    }
+
+    /**
+     * Brings all views up to date: viewers that moved without being updated, and every
+     * viewer after walls changed or the grid was turned.
+     * @param occupancy Occupancy to take the walls from
+     */
+    public void refresh(OccupancyIndex occupancy) {
+        boolean wallsChanged = opacityEpoch != occupancy.getOpacityEpoch() || isFlat != world.getTopology().isFlat();
+        opacityEpoch = occupancy.getOpacityEpoch();
+        isFlat       = world.getTopology().isFlat();
+        for (Entity e : new ArrayList<>(views.keySet())) {
+            Integer from = origin.get(e);
+            if (wallsChanged || from == null || from != world.getTopology().id(e.getTile())) update(e, occupancy);
+        }
+    }
+
+    /**
+     * Forgets everything explored, keeping only what the viewers see right now.
+     */
+    public void reset() {
+        explored.clear();
+        explored.or(visible);
+        changedAll = true;
+    }
+
+    /**
+     * Removes all viewers and forgets everything explored.
+     */
+    public void clear() {
+        views.clear();
+        origin.clear();
+        explored.clear();
+        visible.clear();
+        Arrays.fill(viewers, (short) 0);
+        changedAll = true;
+    }
+
+    private void show(int id) {
+        if (id < 0) return;
+        if (viewers[id]++ == 0) {
+            visible.set(id);
+            explored.set(id);
+            changed(id);
+        }
+    }
+
+    private void hide(int id) {
+        if (id < 0 || viewers[id] == 0) return;
+        if (--viewers[id] == 0) {
+            visible.clear(id);
+            changed(id);
+        }
+    }
+
+    private void changed(int id) {
+        if (changedAll) return;
+        if (changeCount == MAX_CHANGES) {
+            changedAll = true;
+            return;
+        }
+        if (changeCount == changes.length) changes = Arrays.copyOf(changes, changeCount * 2);
+        changes[changeCount++] = id;
+    }
+
+    public boolean isVisible(int id) {
+        return id >= 0 && visible.get(id);
+    }
+
+    public boolean isExplored(int id) {
+        return id >= 0 && explored.get(id);
+    }
+
+    /**
+     * @return World ids changed since the last call to clearChanges, valid up to getChangeCount
+     */
+    public int[] getChanges() {
+        return changes;
+    }
+
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * @return True if too much changed to list, the whole fog has to be redrawn
+     */
+    public boolean hasChangedAll() {
+        return changedAll;
+    }
+
+    /**
+     * Marks all changes as handled.
+     */
+    public void clearChanges() {
+        changeCount = 0;
+        changedAll = false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        changedAll = true;
+    }
+
+    public boolean hasViewers() {
+        return !views.isEmpty();
+    }
+}
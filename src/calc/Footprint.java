@@ -0,0 +1,169 @@
+package calc;
+
+import entities.Character;
+import entities.Entity;
+
+/**
+ * Precomputed tile templates for the character size categories.
+ * Every shape is defined once as walks along the six hex directions from the anchor
+ * tile, which is a fixed set of cube offsets. Offset coordinates shift every other
+ * column (flat) or row (pointy), so at startup each shape is expanded into (row, column)
+ * deltas for both orientations and both parities of the shifted axis. Applying a
+ * footprint is then a plain translation into a caller-supplied buffer.
+ */
+public final class Footprint {
+
+    // Most tiles any size covers (Gargantuan)
+    public static final int MAX_TILES = 12;
+
+    // Direction walks from the anchor, an empty walk is the anchor itself
+    private static final int[][] NORMAL_WALKS     = {{}};
+    private static final int[][] LARGE_WALKS      = {{}, {1}, {2}};
+    private static final int[][] HUGE_WALKS       = {{}, {0}, {1}, {2}, {3}, {4}, {5}};
+    private static final int[][] GARGANTUAN_WALKS = {{}, {0}, {1}, {2}, {3}, {4}, {5},
+                                                     {1, 0}, {1, 1}, {1, 2}, {2, 2}, {2, 3}};
+
+    // Number of template shapes
+    static final int SHAPES = 4;
+
+    // [orientation: 0 flat, 1 pointy][parity][shape] -> row, column delta pairs
+    private static final int[][][][] DELTAS = new int[2][2][][];
+
+    static {
+        int[][][] shapes = {NORMAL_WALKS, LARGE_WALKS, HUGE_WALKS, GARGANTUAN_WALKS};
+        for (int orientation = 0; orientation < 2; orientation++) {
+            boolean isFlat = orientation == 0;
+            for (int parity = 0; parity < 2; parity++) {
+                DELTAS[orientation][parity] = new int[shapes.length][];
+                for (int shape = 0; shape < shapes.length; shape++) {
+                    DELTAS[orientation][parity][shape] = expand(shapes[shape], parity, isFlat);
+                }
+            }
+        }
+    }
+
+    private Footprint() {}
+
+    /**
+     * Expands direction walks into deltas for anchors of one parity.
+     * @return Row, column delta pairs
+     */
+    private static int[] expand(int[][] walks, int parity, boolean isFlat) {
+        int[] deltas = new int[walks.length * 2];
+        for (int i = 0; i < walks.length; i++) {
+            // Any anchor with the right parity works, the deltas only depend on the parity
+            int row = parity, col = parity;
+            for (int dir : walks[i]) {
+                int[] offset = GridTopology.offsets(row, col, isFlat)[dir];
+                row += offset[0];
+                col += offset[1];
+            }
+            deltas[i * 2]     = row - parity;
+            deltas[i * 2 + 1] = col - parity;
+        }
+        return deltas;
+    }
+
+    /**
+     * @param size Size category
+     * @return Index of the template shape for that size, 0 for single-tile sizes
+     */
+    static int shape(int size) {
+        return switch (size) {
+            case Character.LARGE      -> 1;
+            case Character.HUGE       -> 2;
+            case Character.GARGANTUAN -> 3;
+            default                   -> 0;  // Tiny to Medium only cover their anchor
+        };
+    }
+
+    /**
+     * @return Row, column delta pairs of a shape for anchors of the given parity
+     */
+    static int[] deltas(int shape, int parity, boolean isFlat) {
+        return DELTAS[isFlat ? 0 : 1][parity][shape];
+    }
+
+    /**
+     * Picks the deltas for an anchor tile.
+     * @return Row, column delta pairs
+     */
+    private static int[] deltas(int row, int col, int size, boolean isFlat) {
+        return deltas(shape(size), parity(row, col, isFlat), isFlat);
+    }
+
+    /**
+     * @param row Anchor row
+     * @param col Anchor column
+     * @param isFlat Grid orientation
+     * @return Parity of the shifted axis, which picks the delta table
+     */
+    static int parity(int row, int col, boolean isFlat) {
+        return (isFlat ? col : row) & 1;
+    }
+
+    /**
+     * @param size Size category
+     * @return Number of tiles covered by that size
+     */
+    public static int tileCount(int size) {
+        return deltas(0, 0, size, true).length / 2;
+    }
+
+    /**
+     * Writes the coordinates of all covered tiles into the buffers, anchor first.
+     * @param row Anchor row
+     * @param col Anchor column
+     * @param size Size category
+     * @param isFlat Grid orientation
+     * @param rows Receives the rows, at least MAX_TILES long
+     * @param cols Receives the columns, at least MAX_TILES long
+     * @return Number of tiles written
+     */
+    public static int apply(int row, int col, int size, boolean isFlat, int[] rows, int[] cols) {
+        int[] d = deltas(row, col, size, isFlat);
+        int count = d.length / 2;
+        for (int i = 0; i < count; i++) {
+            rows[i] = row + d[i * 2];
+            cols[i] = col + d[i * 2 + 1];
+        }
+        return count;
+    }
+
+    /**
+     * Writes the ids of all covered tiles into the buffer, anchor first.
+     * @param id Anchor id
+     * @param size Size category
+     * @param topology Topology the ids belong to
+     * @param ids Receives the ids (-1 for tiles outside the bounds), at least MAX_TILES long
+     * @return Number of tiles written
+     */
+    public static int apply(int id, int size, GridTopology topology, int[] ids) {
+        int row = topology.row(id), col = topology.col(id);
+        int[] d = deltas(row, col, size, topology.isFlat());
+        int count = d.length / 2;
+        for (int i = 0; i < count; i++) {
+            ids[i] = topology.id(row + d[i * 2], col + d[i * 2 + 1]);
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether a footprint overlaps any entity, without materialising its tiles.
+     * @param row Anchor row
+     * @param col Anchor column
+     * @param size Size category
+     * @param isFlat Grid orientation
+     * @param occupancy Occupancy to test against
+     * @param ignored Entity that does not count as an obstacle (may be null)
+     * @return True if any covered tile is blocked
+     */
+    public static boolean collides(int row, int col, int size, boolean isFlat,
+                                   OccupancyIndex occupancy, Entity ignored) {
+        int[] d = deltas(row, col, size, isFlat);
+        for (int i = 0; i < d.length; i += 2) {
+            if (occupancy.isBlocked(row + d[i], col + d[i + 1], ignored)) return true;
+        }
+        return false;
+    }
+}
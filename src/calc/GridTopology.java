@@ -0,0 +1,127 @@
+package calc;
+
+import fx.Hexagon;
+import java.awt.Rectangle;
+
+/**
+ * Neighbor index for a rectangular block of the hexagonal grid.
+ * Tiles are addressed by dense int ids, and the six neighbors of every tile are
+ * precomputed once into a flat int table, so neighbor lookups are O(1) array reads.
+ * The index only has to be rebuilt when the bounds or the grid orientation change.
+ */
+public final class GridTopology {
+
+    // Neighbor offsets (row, column) in clockwise order, picked by the parity of the shifted axis.
+    // Flat grids shift every other column, pointy grids every other row.
+    private static final int[][] FLAT_EVEN   = {{-1, 0}, {-1, 1}, {0, 1}, {1, 0}, {0, -1}, {-1, -1}};
+    private static final int[][] FLAT_ODD    = {{-1, 0}, { 0, 1}, {1, 1}, {1, 0}, {1, -1}, { 0, -1}};
+    private static final int[][] POINTY_EVEN = {{-1, 0}, { 0, 1}, {1, 0}, {1, -1}, {0, -1}, {-1, -1}};
+    private static final int[][] POINTY_ODD  = {{-1, 1}, { 0, 1}, {1, 1}, {1,  0}, {0, -1}, {-1,  0}};
+
+    // Bounds of the indexed block
+    private final int firstRow, firstCol, rows, cols;
+    // Orientation the neighbor table was built for
+    private final boolean isFlat;
+    // Six neighbor ids per tile, -1 where the neighbor lies outside the bounds
+    private final int[] neighbors;
+
+    /**
+     * Builds the neighbor table for the given bounds.
+     * @param bounds Grid bounds (x = first row, y = first column, width = rows, height = columns)
+     * @param isFlat Whether the grid uses flat-topped hexagons
+     */
+    public GridTopology(Rectangle bounds, boolean isFlat) {
+        this.firstRow = bounds.x;
+        this.firstCol = bounds.y;
+        this.rows     = Math.max(0, bounds.width);
+        this.cols     = Math.max(0, bounds.height);
+        this.isFlat   = isFlat;
+
+        this.neighbors = new int[rows * cols * 6];
+
+        for (int id = 0; id < rows * cols; id++) {
+            int row = row(id);
+            int col = col(id);
+            int[][] offsets = offsets(row, col, isFlat);
+            for (int dir = 0; dir < 6; dir++) {
+                neighbors[id * 6 + dir] = id(row + offsets[dir][0], col + offsets[dir][1]);
+            }
+        }
+    }
+
+    /**
+     * Checks whether this index was built for the given bounds and orientation.
+     * @param bounds Grid bounds to compare against
+     * @param isFlat Orientation to compare against
+     * @return True if the index can be reused
+     */
+    public boolean matches(Rectangle bounds, boolean isFlat) {
+        return this.isFlat == isFlat
+            && bounds.x == firstRow && bounds.y == firstCol
+            && bounds.width == rows && bounds.height == cols;
+    }
+
+    /**
+     * Packs grid coordinates into a dense id.
+     * @param row Grid row (x of the grid point)
+     * @param col Grid column (y of the grid point)
+     * @return The id, or -1 if the tile lies outside the bounds
+     */
+    public int id(int row, int col) {
+        int r = row - firstRow;
+        int c = col - firstCol;
+        if (r < 0 || c < 0 || r >= rows || c >= cols) return -1;
+        return r * cols + c;
+    }
+
+    /**
+     * Gets the id of a hexagon.
+     * @param hex The hexagon
+     * @return The id, or -1 if the hexagon is null or outside the bounds
+     */
+    public int id(Hexagon hex) {
+        if (hex == null) return -1;
+        return id(hex.getGridPoint().x, hex.getGridPoint().y);
+    }
+
+    public int row(int id) {
+        return firstRow + id / cols;
+    }
+
+    public int col(int id) {
+        return firstCol + id % cols;
+    }
+
+    public boolean isFlat() {
+        return isFlat;
+    }
+
+    /**
+     * @return Number of ids in this index
+     */
+    public int size() {
+        return rows * cols;
+    }
+
+    /**
+     * Gets a neighbor id.
+     * @param id The center tile
+     * @param dir Direction 0-5, clockwise
+     * @return The neighbor id, or -1 if it lies outside the bounds
+     */
+    public int neighbor(int id, int dir) {
+        return neighbors[id * 6 + dir];
+    }
+
+    /**
+     * Gets the neighbor offsets for a tile.
+     * @param row Grid row
+     * @param col Grid column
+     * @param isFlat Grid orientation
+     * @return Six (row, column) offsets in clockwise order
+     */
+    public static int[][] offsets(int row, int col, boolean isFlat) {
+        if (isFlat) return (col & 1) == 0 ? FLAT_EVEN   : FLAT_ODD;
+        else        return (row & 1) == 0 ? POINTY_EVEN : POINTY_ODD;
+    }
+}
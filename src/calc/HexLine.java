@@ -0,0 +1,185 @@
+package calc;
+
+import entities.Wall;
+import fx.HexLayout;
+import fx.Hexagon;
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import main.GraphicsHandler;
+
+/**
+ * Exact traversal of the hexagons a straight line crosses (supercover).
+ * The line is walked cell by cell: from the current hexagon it leaves through the edge
+ * whose bisector it hits first, which is always a neighbor, so the cost is linear in the
+ * length of the line and no tile is skipped. Where the line passes exactly through a
+ * corner or along an edge, all hexagons touching it are included.
+ * The walk happens in a unit layout (hexagons of size 1 centered on the origin), so it
+ * does not depend on zoom or pan; pixel endpoints are converted through the layout.
+ */
+public final class HexLine {
+
+    // Axial neighbor offsets (q, r)
+    private static final int[][] DIRECTIONS = {{1, 0}, {1, -1}, {0, -1}, {-1, 0}, {-1, 1}, {0, 1}};
+    // Tolerance for ties between edges and for float noise
+    private static final double EPSILON = 1e-9;
+
+    private HexLine() {}
+
+    /**
+     * Collects the tiles a pixel segment crosses, in order from start to end.
+     * @param from Start pixel
+     * @param to End pixel
+     * @param layout Layout the pixels belong to
+     * @return Grid coordinates (x = row, y = column) of every crossed tile
+     */
+    public static ArrayList<Point> trace(Point2D from, Point2D to, HexLayout layout) {
+        Point2D a = layout.toAxial(from.getX(), from.getY());
+        Point2D b = layout.toAxial(to.getX(), to.getY());
+        return walk(a.getX(), a.getY(), b.getX(), b.getY(), layout.isFlat());
+    }
+
+    /**
+     * Collects the tiles the line between two tile centers crosses, in order.
+     * @param from Start tile (x = row, y = column)
+     * @param to End tile (x = row, y = column)
+     * @param isFlat Grid orientation
+     * @return Grid coordinates of every crossed tile, both ends included
+     */
+    public static ArrayList<Point> between(Point from, Point to, boolean isFlat) {
+        int[] a = toAxial(from.x, from.y, isFlat);
+        int[] b = toAxial(to.x, to.y, isFlat);
+        return walk(a[0], a[1], b[0], b[1], isFlat);
+    }
+
+    /**
+     * Checks whether two tiles can see each other.
+     * Walls on any tile the line between the centers crosses block the view; creatures
+     * don't, they only give cover. The end tiles themselves never block.
+     * @param from Observer tile
+     * @param to Target tile
+     * @param gh GraphicsHandler containing game state
+     * @return True if no wall lies between the tiles
+     */
+    public static boolean lineOfSight(Hexagon from, Hexagon to, GraphicsHandler gh) {
+        if (from == null || to == null) return false;
+        ArrayList<Point> tiles = between(from.getGridPoint(), to.getGridPoint(), GraphicsHandler.isFlat);
+        for (int i = 1; i < tiles.size() - 1; i++) {
+            Point p = tiles.get(i);
+            if (gh.occupancy.get(p.x, p.y) instanceof Wall) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Walks the hexagons between two fractional axial positions.
+     */
+    private static ArrayList<Point> walk(double q0, double r0, double q1, double r1, boolean isFlat) {
+        ArrayList<Point> tiles = new ArrayList<>();
+
+        double x0 = unitX(q0, r0, isFlat), y0 = unitY(q0, r0, isFlat);
+        double dx = unitX(q1, r1, isFlat) - x0, dy = unitY(q1, r1, isFlat) - y0;
+
+        int[] current = round(q0, r0);
+        int[] end     = round(q1, r1);
+        add(tiles, current[0], current[1], isFlat);
+
+        // Every step moves one tile closer, ties add at most two tiles per step
+        int steps = 2 * distance(current, end) + 2;
+        double t = 0;
+        while ((current[0] != end[0] || current[1] != end[1]) && steps-- > 0) {
+            double cx = unitX(current[0], current[1], isFlat), cy = unitY(current[0], current[1], isFlat);
+
+            // Leave through the edge whose bisector the line reaches first
+            double exit = Double.MAX_VALUE;
+            int first = -1, second = -1;
+            for (int dir = 0; dir < 6; dir++) {
+                int nq = current[0] + DIRECTIONS[dir][0], nr = current[1] + DIRECTIONS[dir][1];
+                double ex = unitX(nq, nr, isFlat) - cx, ey = unitY(nq, nr, isFlat) - cy;
+                double speed = dx * ex + dy * ey;
+                if (speed <= EPSILON) continue;  // Moving away from or along this edge
+
+                // Edge midpoint lies halfway to the neighbor
+                double mx = cx + ex / 2 - x0, my = cy + ey / 2 - y0;
+                double at = (mx * ex + my * ey) / speed;
+                if (at < exit - EPSILON) {
+                    exit = at;
+                    first = dir;
+                    second = -1;
+                } else if (at < exit + EPSILON) {
+                    second = dir;
+                }
+            }
+            if (first < 0 || exit > 1 + EPSILON) break;
+            t = Math.max(t, exit);
+
+            if (second < 0) {
+                current = new int[] {current[0] + DIRECTIONS[first][0], current[1] + DIRECTIONS[first][1]};
+            } else {
+                // Through a corner, shared with the two neighbors behind the tied edges
+                int[] a = {current[0] + DIRECTIONS[first][0],  current[1] + DIRECTIONS[first][1]};
+                int[] b = {current[0] + DIRECTIONS[second][0], current[1] + DIRECTIONS[second][1]};
+                double ex = unitX(b[0], b[1], isFlat) - unitX(a[0], a[1], isFlat);
+                double ey = unitY(b[0], b[1], isFlat) - unitY(a[0], a[1], isFlat);
+                if (Math.abs(dx * ex + dy * ey) <= EPSILON * Math.hypot(dx, dy)) {
+                    // Running along their shared edge, so the line touches both
+                    add(tiles, a[0], a[1], isFlat);
+                    current = b;
+                } else {
+                    // Continue in whichever hexagon the line enters after the corner
+                    double next = Math.min(1, t + 1e-6);
+                    current = round(q0 + (q1 - q0) * next, r0 + (r1 - r0) * next);
+                }
+            }
+            add(tiles, current[0], current[1], isFlat);
+        }
+        if (current[0] != end[0] || current[1] != end[1]) add(tiles, end[0], end[1], isFlat);
+        return tiles;
+    }
+
+    /**
+     * Appends a tile unless it was one of the last few added.
+     */
+    private static void add(ArrayList<Point> tiles, int q, int r, boolean isFlat) {
+        Point p = isFlat ? new Point(r + (q >> 1), q) : new Point(r, q + (r >> 1));
+        for (int i = Math.max(0, tiles.size() - 3); i < tiles.size(); i++) {
+            if (tiles.get(i).equals(p)) return;
+        }
+        tiles.add(p);
+    }
+
+    // Unit layout, hexagon centers of size 1 around the origin
+    private static double unitX(double q, double r, boolean isFlat) {
+        return isFlat ? 1.5 * q : Math.sqrt(3) * (q + r / 2);
+    }
+
+    private static double unitY(double q, double r, boolean isFlat) {
+        return isFlat ? Math.sqrt(3) * (r + q / 2) : 1.5 * r;
+    }
+
+    /**
+     * Converts offset coordinates to axial ones.
+     * @return q, r
+     */
+    private static int[] toAxial(int row, int col, boolean isFlat) {
+        return isFlat ? new int[] {col, row - (col >> 1)} : new int[] {col - (row >> 1), row};
+    }
+
+    /**
+     * Rounds fractional axial coordinates to the containing hexagon (cube rounding).
+     * @return q, r
+     */
+    private static int[] round(double q, double r) {
+        double s = -q - r;
+        long rq = Math.round(q), rr = Math.round(r), rs = Math.round(s);
+        double dq = Math.abs(rq - q), dr = Math.abs(rr - r), ds = Math.abs(rs - s);
+        if (dq > dr && dq > ds) rq = -rr - rs;
+        else if (dr > ds)       rr = -rq - rs;
+        return new int[] {(int) rq, (int) rr};
+    }
+
+    private static int distance(int[] a, int[] b) {
+        int dq = a[0] - b[0], dr = a[1] - b[1];
+        return Math.max(Math.max(Math.abs(dq), Math.abs(dr)), Math.abs(dq + dr));
+    }
+}
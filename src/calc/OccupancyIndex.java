@@ -0,0 +1,302 @@
+package calc;
+
+import entities.Entity;
+import entities.Wall;
+import fx.Hexagon;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import main.GraphicsHandler;
+
+/**
+ * Index from packed grid coordinates to the entity occupying that tile.
+ * Kept up to date incrementally whenever entities spawn, move or are deleted,
+ * so collision checks are a single hash lookup instead of a scan over all entities.
+ * Every change bumps an epoch that caches can use to detect stale results.
+ */
+public class OccupancyIndex {
+
+    // Wall tile changes kept for caches that update instead of rebuilding
+    public static final int WALL_LOG = 4096;
+
+    // Open addressing table (linear probing), a slot is empty if its entity is null
+    private long[]   keys     = new long[64];
+    private Entity[] occupant = new Entity[64];
+    private int count = 0;
+
+    // Tiles registered for each entity, so they can be released on move/delete
+    private final Map<Entity, long[]> registered = new IdentityHashMap<>();
+    // Set once two entities claimed the same tile, removals then re-register the others
+    private boolean hasOverlaps = false;
+    // Bumped on every change
+    private int epoch = 0;
+    // Bumped only when walls change, for results that depend on what blocks the view
+    private int opacityEpoch = 0;
+    // Packed keys of the last WALL_LOG tiles a wall was put on or taken from, as a ring buffer
+    private final long[] wallLog = new long[WALL_LOG];
+    private long wallChanges = 0;
+    // Which anchors multi-tile creatures can stand on, follows every occupied/free change
+    private final ClearanceMap clearance = new ClearanceMap(GraphicsHandler.isFlat);
+    // Scratch buffers for footprint coordinates
+    private final int[] rowBuffer = new int[Footprint.MAX_TILES];
+    private final int[] colBuffer = new int[Footprint.MAX_TILES];
+
+    /**
+     * Packs grid coordinates into a single long key.
+     * @param row Grid row (x of the grid point)
+     * @param col Grid column (y of the grid point)
+     * @return The packed key
+     */
+    public static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Registers all tiles occupied by an entity.
+     * @param e Entity to add
+     */
+    public void add(Entity e) {
+        if (e == null || e.getTile() == null || registered.containsKey(e)) return;
+
+        long[] tiles = footprint(e);
+        for (long k : tiles) {
+            Entity existing = get(k);
+            if (existing != null && existing != e) {
+                hasOverlaps = true;
+                continue;  // First come first served, the other entity keeps the tile
+            }
+            put(k, e);
+        }
+        registered.put(e, tiles);
+        epoch++;
+        if (e instanceof Wall) opacityEpoch++;
+    }
+
+    /**
+     * Releases all tiles occupied by an entity.
+     * @param e Entity to remove
+     */
+    public void remove(Entity e) {
+        long[] tiles = registered.remove(e);
+        if (tiles == null) return;
+
+        for (long k : tiles) {
+            if (get(k) == e) delete(k);
+        }
+        // Give tiles that were shared with the removed entity back to the others
+        if (hasOverlaps) {
+            for (Map.Entry<Entity, long[]> entry : registered.entrySet()) {
+                for (long k : entry.getValue()) {
+                    if (get(k) == null) put(k, entry.getKey());
+                }
+            }
+        }
+        epoch++;
+        if (e instanceof Wall) opacityEpoch++;
+    }
+
+    /**
+     * Re-registers an entity after its tile or size changed.
+     * @param e Entity to update
+     */
+    public void update(Entity e) {
+        remove(e);
+        add(e);
+    }
+
+    /**
+     * Rebuilds the whole index, e.g. after the grid orientation changed.
+     * @param entities All entities in the game
+     */
+    public void rebuild(Iterable<Entity> entities) {
+        clear();
+        for (Entity e : entities) add(e);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        Arrays.fill(occupant, null);
+        registered.clear();
+        count = 0;
+        hasOverlaps = false;
+        clearance.reset(GraphicsHandler.isFlat);
+        epoch++;
+        opacityEpoch++;
+        // More changes than the log holds, readers rebuild from scratch
+        wallChanges += WALL_LOG + 1;
+    }
+
+    /**
+     * Gets the entity occupying a tile.
+     * @param row Grid row
+     * @param col Grid column
+     * @return The occupying entity, or null if the tile is free
+     */
+    public Entity get(int row, int col) {
+        return get(key(row, col));
+    }
+
+    /**
+     * Gets the entity occupying a hexagon.
+     * @param hex Hexagon to check
+     * @return The occupying entity, or null if the tile is free
+     */
+    public Entity get(Hexagon hex) {
+        if (hex == null) return null;
+        return get(key(hex.getGridPoint().x, hex.getGridPoint().y));
+    }
+
+    /**
+     * Checks whether a tile is occupied by any entity other than the given one.
+     * @param row Grid row
+     * @param col Grid column
+     * @param ignored Entity that does not count as an obstacle (may be null)
+     * @return True if the tile is blocked
+     */
+    public boolean isBlocked(int row, int col, Entity ignored) {
+        Entity e = get(key(row, col));
+        return e != null && e != ignored;
+    }
+
+    /**
+     * @return Counter that changes whenever the occupancy changes
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return Counter that changes whenever a wall is added or removed
+     */
+    public int getOpacityEpoch() {
+        return opacityEpoch;
+    }
+
+    /**
+     * @return Number of tiles a wall was put on or taken from so far
+     */
+    public long getWallChangeCount() {
+        return wallChanges;
+    }
+
+    /**
+     * Gets a tile a wall was put on or taken from.
+     * @param n Number of the change, only the last WALL_LOG changes are kept
+     * @return Packed key of the tile
+     */
+    public long getWallChange(long n) {
+        return wallLog[(int) (n % WALL_LOG)];
+    }
+
+    /**
+     * Calculates the packed tiles an entity covers, based on its anchor tile and size.
+     * Works on coordinates, so it does not depend on which tiles the world has created.
+     * @param e The entity
+     * @return Packed keys of all covered tiles
+     */
+    private long[] footprint(Entity e) {
+        int count = Footprint.apply(e.getTile().getGridPoint().x, e.getTile().getGridPoint().y,
+                                    e.getSize(), GraphicsHandler.isFlat, rowBuffer, colBuffer);
+        long[] tiles = new long[count];
+        for (int i = 0; i < count; i++) {
+            tiles[i] = key(rowBuffer[i], colBuffer[i]);
+        }
+        return tiles;
+    }
+
+    /**
+     * Checks whether an entity of the given size could stand on a tile without overlapping others.
+     * @param row Anchor row
+     * @param col Anchor column
+     * @param size Size category
+     * @param ignored Entity that does not count as an obstacle (may be null)
+     * @return True if any tile of the footprint is blocked
+     */
+    public boolean collides(int row, int col, int size, Entity ignored) {
+        return Footprint.collides(row, col, size, GraphicsHandler.isFlat, this, ignored);
+    }
+
+    /**
+     * Checks whether an entity of the given size could stand on a tile, using the clearance map.
+     * Costs one array read unless something blocks the footprint.
+     * @param row Anchor row
+     * @param col Anchor column
+     * @param size Size category
+     * @param ignored Entity that does not count as an obstacle (may be null)
+     * @return True if the whole footprint lies in the world and is free
+     */
+    public boolean fits(int row, int col, int size, Entity ignored) {
+        return clearance.fits(row, col, size, ignored, this);
+    }
+
+    // Hash table internals ------------------------------------------
+
+    private int slot(long k) {
+        return (int) ((k * 0x9E3779B97F4A7C15L) >>> 32) & (keys.length - 1);
+    }
+
+    private Entity get(long k) {
+        for (int i = slot(k); occupant[i] != null; i = (i + 1) & (keys.length - 1)) {
+            if (keys[i] == k) return occupant[i];
+        }
+        return null;
+    }
+
+    private void put(long k, Entity e) {
+        if (insert(k, e)) clearance.occupy((int) (k >> 32), (int) k);
+        if (e instanceof Wall) wallLog[(int) (wallChanges++ % WALL_LOG)] = k;
+    }
+
+    /**
+     * Stores an entry without touching the clearance map.
+     * @return True if the key was not in the table before
+     */
+    private boolean insert(long k, Entity e) {
+        if ((count + 1) * 2 > keys.length) grow();
+        int i = slot(k);
+        while (occupant[i] != null && keys[i] != k) i = (i + 1) & (keys.length - 1);
+        boolean added = occupant[i] == null;
+        if (added) count++;
+        keys[i] = k;
+        occupant[i] = e;
+        return added;
+    }
+
+    /**
+     * Removes a key and shifts following entries back so probing chains stay intact.
+     */
+    private void delete(long k) {
+        int mask = keys.length - 1;
+        int i = slot(k);
+        while (occupant[i] != null && keys[i] != k) i = (i + 1) & mask;
+        if (occupant[i] == null) return;
+
+        if (occupant[i] instanceof Wall) wallLog[(int) (wallChanges++ % WALL_LOG)] = k;
+        occupant[i] = null;
+        count--;
+        clearance.release((int) (k >> 32), (int) k);
+        for (int j = (i + 1) & mask; occupant[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            // Move the entry into the hole if its home slot is not between the hole and its position
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                occupant[i] = occupant[j];
+                occupant[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    private void grow() {
+        long[]   oldKeys     = keys;
+        Entity[] oldOccupant = occupant;
+        keys     = new long[oldKeys.length * 2];
+        occupant = new Entity[oldKeys.length * 2];
+        count = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldOccupant[i] != null) insert(oldKeys[i], oldOccupant[i]);
+        }
+    }
+}
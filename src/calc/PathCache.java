@@ -0,0 +1,92 @@
+package calc;
+
+import fx.Hexagon;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import main.GraphicsHandler;
+
+/**
+ * Bounded LRU cache in front of a path finder.
+ * Results are keyed by the endpoints, the obstacle mode and the occupancy and terrain
+ * epochs, so any spawn, move, delete or terrain edit makes older entries unreachable
+ * and they simply age out. Repeated queries, like measurements redrawn on every
+ * mouse move, cost a hash lookup instead of a search.
+ */
+public class PathCache {
+
+    // Stored for queries without a path, since the map can't tell a cached null from a miss
+    private static final ArrayList<Hexagon> NO_PATH = new ArrayList<>();
+
+    private record Key(int start, int end, boolean ignoreObstacles, boolean isFlat,
+                       int occupancyEpoch, int terrainEpoch) {}
+
+    private final PathFinder finder;
+    private final Map<Key, ArrayList<Hexagon>> entries;
+
+    private int hits = 0;
+    private int misses = 0;
+
+    /**
+     * Creates a cache.
+     * @param finder Finder used on misses
+     * @param capacity Maximum number of cached paths
+     */
+    public PathCache(PathFinder finder, int capacity) {
+        this.finder = finder;
+        // Access ordered, so the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ArrayList<Hexagon>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Finds the shortest path between two hexagons, reusing a cached result if nothing changed.
+     * @param start The starting hexagon
+     * @param end The target hexagon
+     * @param gh GraphicsHandler containing game state
+     * @param ignoreObstacles If true, will ignore entity collisions
+     * @return A fresh list of hexagons representing the path, or null if no path exists
+     */
+    public ArrayList<Hexagon> find(Hexagon start, Hexagon end, GraphicsHandler gh, boolean ignoreObstacles) {
+        if (start == null || end == null || gh == null) return null;
+
+        GridTopology topology = gh.getTopology();
+        Key key = new Key(topology.id(start), topology.id(end), ignoreObstacles, topology.isFlat(),
+                          ignoreObstacles ? 0 : gh.occupancy.getEpoch(),  // Entities don't matter then
+                          gh.terrain.getEpoch());
+
+        ArrayList<Hexagon> path = entries.get(key);
+        if (path != null) {
+            hits++;
+        } else {
+            misses++;
+            path = finder.find(start, end, gh, ignoreObstacles);
+            entries.put(key, path == null ? NO_PATH : path);
+            if (path == null) return null;
+        }
+        if (path == NO_PATH) return null;
+        // Callers may modify the list they get
+        return new ArrayList<>(path);
+    }
+
+    /**
+     * Drops all cached paths and resets the counters.
+     */
+    public void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,183 @@
+package calc;
+
+import entities.Character;
+import entities.Entity;
+import fx.Hexagon;
+import java.util.ArrayList;
+import java.util.Arrays;
+import main.GraphicsHandler;
+
+/**
+ * Allocation-free A* search over the hexagonal grid.
+ * Tiles are addressed by the dense int ids of the grid topology, so costs, parents
+ * and the closed set live in primitive arrays that are reused between queries
+ * instead of being boxed into Points and hash maps.
+ * Entering a tile costs its terrain cost. Since those are small integers the open
+ * list is a bucket queue, which keeps weighted searches as cheap as uniform ones.
+ * Paths of multi-tile creatures only use tiles their whole footprint fits on.
+ */
+public class PathFinder {
+
+    // Per-tile search state, indexed by packed tile id
+    private int[] gCost     = new int[0];  // Cost from start, valid if seenStamp matches
+    private int[] cameFrom  = new int[0];  // Parent id on the best known path
+    private int[] seenStamp = new int[0];  // Generation in which gCost was written
+    private int[] closed    = new int[0];  // Generation in which the tile was expanded
+
+    // Current query generation, bumped instead of clearing the arrays
+    private int generation = 0;
+
+    // Open list keyed by f-cost. One step raises f by at most MAX_COST + 1
+    // (step cost plus the heuristic dropping by one), so that many buckets suffice.
+    private final BucketQueue open = new BucketQueue(TerrainLayer.MAX_COST + 2);
+
+    // Components of the free tiles, rejects goals that can't be reached before searching
+    private final ComponentMap components;
+
+    // World and neighbor index the current query runs on
+    private WorldGrid world;
+    private GridTopology topology;
+
+    /**
+     * Creates a finder.
+     * @param components Component labels used to reject unreachable goals
+     */
+    public PathFinder(ComponentMap components) {
+        this.components = components;
+    }
+
+    /**
+     * Finds the shortest path between two hexagons.
+     * @param start The starting hexagon
+     * @param end The target hexagon
+     * @param gh GraphicsHandler containing game state
+     * @param ignoreObstacles If true, will ignore entity collisions
+     * @return List of hexagons representing the path, or null if no path exists
+     */
+    public ArrayList<Hexagon> find(Hexagon start, Hexagon end, GraphicsHandler gh, boolean ignoreObstacles) {
+        if (start == null || end == null || gh == null) return null;
+
+        // Without obstacles every tile is connected, otherwise a walled-off goal would flood the world
+        if (!ignoreObstacles && !components.canReach(start, end, gh)) {
+            if (gh.debugMode)
+                gh.consol.addLogMessage("No path found");
+            return null;
+        }
+
+        prepare(gh.world);
+
+        int startId = topology.id(start);
+        int endId   = topology.id(end);
+        if (startId < 0 || endId < 0) return null;
+
+        // Entity standing on the start tile never blocks its own path
+        OccupancyIndex occupancy = ignoreObstacles ? null : gh.occupancy;
+        Entity sourceEntity = ignoreObstacles ? null : occupancy.get(start);
+        TerrainLayer terrain = gh.terrain;
+        // Multi-tile creatures need room for their whole footprint on every tile of the path
+        int size = sourceEntity != null ? sourceEntity.getSize() : Character.NORMAL;
+        boolean isFlat = topology.isFlat();
+
+        int endRow = topology.row(endId);
+        int endCol = topology.col(endId);
+
+        // Components only know walls, a goal another token stands on would also flood the world
+        if (occupancy != null && endId != startId && !occupancy.fits(endRow, endCol, size, sourceEntity)) {
+            if (gh.debugMode)
+                gh.consol.addLogMessage("No path found");
+            return null;
+        }
+
+        gCost[startId]     = 0;
+        cameFrom[startId]  = -1;
+        seenStamp[startId] = generation;
+        open.pushOrDecrease(startId, Calc.hexDistance(start.getGridPoint().x, start.getGridPoint().y, endRow, endCol));
+
+        while (!open.isEmpty()) {
+            int current = open.pop();
+
+            // Check if we've reached the destination
+            if (current == endId) {
+                open.clear();
+                ArrayList<Hexagon> path = reconstructPath(endId);
+                if (gh.debugMode)
+                    gh.consol.addLogMessage("Shortest path is " + (path.size() - 1) + " tiles long, movement cost " + gCost[current] + ".");
+                return path;
+            }
+            closed[current] = generation;
+
+            for (int dir = 0; dir < 6; dir++) {
+                int neighbor = topology.neighbor(current, dir);
+                if (neighbor < 0) continue;
+
+                // Skip already evaluated and occupied tiles
+                if (closed[neighbor] == generation) continue;
+                int row = topology.row(neighbor), col = topology.col(neighbor);
+                if (occupancy != null && !occupancy.fits(row, col, size, sourceEntity)) continue;
+
+                int step = size > Character.NORMAL ? terrain.footprintCost(row, col, size, isFlat) : terrain.cost(row, col);
+                int tentativeGCost = gCost[current] + step;
+
+                // Only continue if this path to the neighbor is better than any previous one
+                if (seenStamp[neighbor] == generation && tentativeGCost >= gCost[neighbor]) continue;
+
+                gCost[neighbor]     = tentativeGCost;
+                cameFrom[neighbor]  = current;
+                seenStamp[neighbor] = generation;
+
+                int h = Calc.hexDistance(row, col, endRow, endCol);
+                open.pushOrDecrease(neighbor, tentativeGCost + h);
+            }
+        }
+
+        if (gh.debugMode)
+            gh.consol.addLogMessage("No path found");
+        return null;
+    }
+
+    /**
+     * Adopts the world's neighbor index, grows the arrays if needed and starts a new generation.
+     * @param world The world grid
+     */
+    private void prepare(WorldGrid world) {
+        this.world    = world;
+        this.topology = world.getTopology();
+
+        int size = topology.size();
+        if (gCost.length < size) {
+            gCost     = new int[size];
+            cameFrom  = new int[size];
+            seenStamp = new int[size];
+            closed    = new int[size];
+            open.ensureCapacity(size);
+            generation = 0;
+        }
+
+        // Reset stamps on overflow so old generations can't collide with new ones
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seenStamp, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Walks the parent ids back from the end and resolves them to hexagons.
+     * @param endId Id of the target tile
+     * @return List of hexagons representing the path
+     */
+    private ArrayList<Hexagon> reconstructPath(int endId) {
+        int length = 0;
+        for (int id = endId; id >= 0; id = cameFrom[id]) length++;
+
+        ArrayList<Hexagon> path = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) path.add(null);
+
+        int current = endId;
+        for (int i = length - 1; i >= 0 && current >= 0; i--) {
+            path.set(i, world.tile(current));
+            current = cameFrom[current];
+        }
+        return path;
+    }
+}
@@ -0,0 +1,143 @@
+package calc;
+
+import entities.Character;
+import entities.Entity;
+import fx.Hexagon;
+import java.util.ArrayList;
+import java.util.Arrays;
+import main.GraphicsHandler;
+
+/**
+ * Dijkstra flood fill for movement ranges.
+ * Entering a tile costs its terrain cost (the highest one under the footprint for
+ * larger creatures). The frontier is a bucket queue and settled tiles are marked
+ * with a generation stamp, so every tile is looked at once per query instead of
+ * being searched for in lists.
+ */
+public class RangeFinder {
+
+    // Per-tile state, indexed by topology id
+    private int[] seen    = new int[0];  // Generation in which cost was written
+    private int[] settled = new int[0];  // Generation in which the tile was expanded
+    private int[] cost    = new int[0];  // Movement cost, valid if seen matches
+    private int[] checked = new int[0];  // Generation in which step was written
+    private int[] step    = new int[0];  // Cost of stepping onto the tile, -1 if blocked
+    private int[] parent  = new int[0];  // Previous id on the cheapest known path
+    private int[] found   = new int[0];  // Position in the result, valid if settled matches
+    private int generation = 0;
+
+    // Reached tiles of the current query, copied into the result at the end
+    private int[] foundIds  = new int[64];
+    private int[] foundCost = new int[64];
+    private int[] foundPrev = new int[64];
+
+    // Frontier keyed by movement cost, a step adds at most MAX_COST
+    private final BucketQueue frontier = new BucketQueue(TerrainLayer.MAX_COST + 1);
+
+    /**
+     * Calculates all positions reachable within a given movement budget.
+     * @param center Starting hexagon
+     * @param speed Maximum movement distance
+     * @param movingCharacter The character moving (null for single tile collision checks)
+     * @param gh GraphicsHandler containing game state
+     * @return The reachable tiles with their movement costs and cheapest paths
+     */
+    public DistanceField find(Hexagon center, int speed, Character movingCharacter, GraphicsHandler gh) {
+        GridTopology topology = gh.getTopology();
+        int start = topology.id(center);
+        if (speed <= 0 || start < 0) return DistanceField.empty(gh, start);
+
+        prepare(topology.size());
+
+        // The entity on the start tile never blocks its own movement
+        Entity mover = movingCharacter != null ? movingCharacter : gh.occupancy.get(center);
+
+        int count = 0;
+        ArrayList<Hexagon> tiles = new ArrayList<>();
+
+        seen[start] = generation;
+        cost[start] = 0;
+        frontier.pushOrDecrease(start, 0);
+
+        while (!frontier.isEmpty()) {
+            int current = frontier.pop();
+            settled[current] = generation;
+            if (current != start) {
+                if (count == foundIds.length) {
+                    foundIds  = Arrays.copyOf(foundIds, count * 2);
+                    foundCost = Arrays.copyOf(foundCost, count * 2);
+                    foundPrev = Arrays.copyOf(foundPrev, count * 2);
+                }
+                // The parent was settled first, so it already has its position
+                found[current]   = count;
+                foundIds[count]  = current;
+                foundCost[count] = cost[current];
+                foundPrev[count] = parent[current] == start ? -1 : found[parent[current]];
+                count++;
+                tiles.add(gh.world.tile(current));
+            }
+
+            for (int dir = 0; dir < 6; dir++) {
+                int neighbor = topology.neighbor(current, dir);
+                if (neighbor < 0 || settled[neighbor] == generation) continue;
+
+                // Footprint checks only need to run once per tile
+                if (checked[neighbor] != generation) {
+                    checked[neighbor] = generation;
+                    step[neighbor] = stepCost(neighbor, topology, movingCharacter, mover, gh);
+                }
+                if (step[neighbor] < 0) continue;
+
+                int c = cost[current] + step[neighbor];
+                if (c > speed || (seen[neighbor] == generation && c >= cost[neighbor])) continue;
+
+                seen[neighbor] = generation;
+                cost[neighbor] = c;
+                parent[neighbor] = current;
+                frontier.pushOrDecrease(neighbor, c);
+            }
+        }
+        return new DistanceField(gh, start, Arrays.copyOf(foundIds, count), Arrays.copyOf(foundCost, count),
+                                 Arrays.copyOf(foundPrev, count), tiles, speed);
+    }
+
+    /**
+     * Calculates the cost of stepping onto a tile.
+     * Characters need their whole footprint on the grid and free of other entities,
+     * which the clearance map answers with one read for free anchors.
+     * @return The terrain cost, or -1 if the mover can't stand there
+     */
+    static int stepCost(int id, GridTopology topology, Character movingCharacter, Entity mover, GraphicsHandler gh) {
+        int row = topology.row(id), col = topology.col(id);
+        if (movingCharacter == null || movingCharacter.getSize() <= Character.NORMAL) {
+            return gh.occupancy.isBlocked(row, col, mover) ? -1 : gh.terrain.cost(row, col);
+        }
+        int size = movingCharacter.getSize();
+        if (!gh.occupancy.fits(row, col, size, mover)) return -1;
+        return gh.terrain.footprintCost(row, col, size, topology.isFlat());
+    }
+
+    /**
+     * Grows the arrays if needed and starts a new generation.
+     * @param size Number of ids in the topology
+     */
+    private void prepare(int size) {
+        if (cost.length < size) {
+            seen    = new int[size];
+            settled = new int[size];
+            cost    = new int[size];
+            checked = new int[size];
+            step    = new int[size];
+            parent  = new int[size];
+            found   = new int[size];
+            frontier.ensureCapacity(size);
+            generation = 0;
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(settled, 0);
+            Arrays.fill(checked, 0);
+            generation = 1;
+        }
+    }
+}
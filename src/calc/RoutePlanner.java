@@ -0,0 +1,330 @@
+package calc;
+
+import entities.Character;
+import entities.Entity;
+import fx.Hexagon;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import main.GraphicsHandler;
+
+/**
+ * Routes from a start through several waypoints.
+ * One Dijkstra search per point (the start and every waypoint) settles all the other
+ * points at once and keeps the cheapest leg to each of them, which gives the full cost
+ * matrix with as many searches as there are points. The visiting order is either the
+ * given one or solved: exactly with the Held-Karp dynamic program up to EXACT_LIMIT
+ * waypoints, and with nearest neighbor plus 2-opt above that. Steps cost the same as
+ * in movement ranges, including terrain and the footprint of the entity on the start.
+ */
+public class RoutePlanner {
+
+    // Waypoint counts up to this are ordered exactly, 2^n * n^2 steps
+    public static final int EXACT_LIMIT = 12;
+    // Cost of legs that don't exist
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 4;
+
+    /**
+     * A planned route.
+     */
+    public static final class Route {
+        private final List<Hexagon> order;
+        private final ArrayList<Hexagon> path;
+        private final int cost;
+
+        private Route(List<Hexagon> order, ArrayList<Hexagon> path, int cost) {
+            this.order = order;
+            this.path  = path;
+            this.cost  = cost;
+        }
+
+        /**
+         * @return The waypoints in the order they are visited
+         */
+        public List<Hexagon> getOrder() {
+            return order;
+        }
+
+        /**
+         * @return All tiles of the route, starting with the start tile
+         */
+        public ArrayList<Hexagon> getPath() {
+            return path;
+        }
+
+        /**
+         * @return Movement cost of the whole route
+         */
+        public int getCost() {
+            return cost;
+        }
+    }
+
+    private final ComponentMap components;
+
+    // Per-tile state, indexed by topology id
+    private int[] seen    = new int[0];  // Generation in which cost was written
+    private int[] settled = new int[0];  // Generation in which the tile was expanded
+    private int[] cost    = new int[0];  // Movement cost, valid if seen matches
+    private int[] checked = new int[0];  // Generation in which step was written
+    private int[] step    = new int[0];  // Cost of stepping onto the tile, -1 if blocked
+    private int[] parent  = new int[0];  // Previous id on the cheapest known path
+    private int[] target  = new int[0];  // Generation in which the tile is a point to settle
+    private int generation = 0;
+
+    // Frontier keyed by movement cost, a step adds at most MAX_COST
+    private final BucketQueue frontier = new BucketQueue(TerrainLayer.MAX_COST + 1);
+
+    /**
+     * Creates a planner.
+     * @param components Connected components used to skip points that can't be reached
+     */
+    public RoutePlanner(ComponentMap components) {
+        this.components = components;
+    }
+
+    /**
+     * Plans a route from a start through all waypoints.
+     * @param start The starting hexagon
+     * @param waypoints Hexagons to visit
+     * @param optimizeOrder If true the cheapest visiting order is used, otherwise the given one
+     * @param gh GraphicsHandler containing game state
+     * @return The route, or null if a waypoint can't be reached
+     */
+    public Route plan(Hexagon start, List<Hexagon> waypoints, boolean optimizeOrder, GraphicsHandler gh) {
+        GridTopology topology = gh.getTopology();
+        int n = waypoints.size() + 1;
+        int[] ids = new int[n];
+        ids[0] = topology.id(start);
+        for (int i = 1; i < n; i++) ids[i] = topology.id(waypoints.get(i - 1));
+        for (int id : ids) {
+            if (id < 0) return null;
+        }
+
+        // The entity on the start walks the whole route
+        Entity mover = gh.occupancy.get(start);
+        Character character = mover instanceof Character c ? c : null;
+
+        int[][] distance = new int[n][n];
+        int[][][] legs = new int[n][n][];
+        for (int i = 0; i < n; i++) {
+            // The route never returns to the start, so no leg leads there
+            if (i == n - 1 && !optimizeOrder) break;
+            search(i, ids, topology, character, mover, distance[i], legs[i], gh);
+        }
+
+        int[] order = optimizeOrder ? (n - 1 <= EXACT_LIMIT ? exactOrder(distance) : improvedOrder(distance))
+                                    : identityOrder(n);
+
+        // Join the legs, every leg starts where the previous one ended
+        ArrayList<Hexagon> path = new ArrayList<>();
+        path.add(start);
+        List<Hexagon> visited = new ArrayList<>();
+        int total = 0;
+        for (int k = 1; k < order.length; k++) {
+            int from = order[k - 1], to = order[k];
+            if (distance[from][to] >= UNREACHABLE) return null;
+            total += distance[from][to];
+            for (int id : legs[from][to]) path.add(gh.world.tile(id));
+            visited.add(waypoints.get(to - 1));
+        }
+        return new Route(visited, path, total);
+    }
+
+    /**
+     * Dijkstra from one point until every other point is settled.
+     * Fills the costs to all points and the legs to them, without their first tile.
+     */
+    private void search(int source, int[] ids, GridTopology topology, Character character, Entity mover,
+                        int[] distance, int[][] legs, GraphicsHandler gh) {
+        prepare(topology.size());
+        Hexagon origin = gh.world.tile(ids[0]);
+
+        Arrays.fill(distance, UNREACHABLE);
+        int remaining = 0;
+        for (int i = 0; i < ids.length; i++) {
+            // The route never returns to its start, so it is no point to settle for the others
+            if (i == 0 || ids[i] == ids[source] || target[ids[i]] == generation) continue;
+            // Points the route's start can't reach would make the search flood everything
+            if (!components.canReach(origin, gh.world.tile(ids[i]), gh)) continue;
+            target[ids[i]] = generation;
+            remaining++;
+        }
+
+        int start = ids[source];
+        seen[start] = generation;
+        cost[start] = 0;
+        parent[start] = -1;
+        frontier.clear();
+        frontier.pushOrDecrease(start, 0);
+
+        while (remaining > 0 && !frontier.isEmpty()) {
+            int current = frontier.pop();
+            settled[current] = generation;
+            if (target[current] == generation && current != start) remaining--;
+
+            for (int dir = 0; dir < 6; dir++) {
+                int neighbor = topology.neighbor(current, dir);
+                if (neighbor < 0 || settled[neighbor] == generation) continue;
+
+                // Footprint checks only need to run once per tile
+                if (checked[neighbor] != generation) {
+                    checked[neighbor] = generation;
+                    step[neighbor] = RangeFinder.stepCost(neighbor, topology, character, mover, gh);
+                }
+                if (step[neighbor] < 0) continue;
+
+                int c = cost[current] + step[neighbor];
+                if (seen[neighbor] == generation && c >= cost[neighbor]) continue;
+
+                seen[neighbor] = generation;
+                cost[neighbor] = c;
+                parent[neighbor] = current;
+                frontier.pushOrDecrease(neighbor, c);
+            }
+        }
+
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            if (i == source || id == start) {
+                distance[i] = 0;
+                legs[i] = new int[0];
+            } else if (settled[id] == generation) {
+                distance[i] = cost[id];
+                int length = 0;
+                for (int t = id; t != start; t = parent[t]) length++;
+                int[] leg = new int[length];
+                for (int t = id, k = length - 1; t != start; t = parent[t]) leg[k--] = t;
+                legs[i] = leg;
+            }
+        }
+    }
+
+    /**
+     * Held-Karp: cheapest open route from point 0 through all others.
+     */
+    private static int[] exactOrder(int[][] distance) {
+        int n = distance.length, m = n - 1;
+        if (m == 0) return new int[] {0};
+        int full = (1 << m) - 1;
+        // best[mask][last]: cheapest route from the start through mask ending at waypoint last
+        int[][] best = new int[1 << m][m];
+        int[][] previous = new int[1 << m][m];
+        for (int[] row : best) Arrays.fill(row, UNREACHABLE);
+        for (int j = 0; j < m; j++) best[1 << j][j] = distance[0][j + 1];
+
+        for (int mask = 1; mask <= full; mask++) {
+            for (int last = 0; last < m; last++) {
+                int c = best[mask][last];
+                if ((mask & (1 << last)) == 0 || c >= UNREACHABLE) continue;
+                for (int next = 0; next < m; next++) {
+                    if ((mask & (1 << next)) != 0) continue;
+                    int d = c + distance[last + 1][next + 1];
+                    int nextMask = mask | (1 << next);
+                    if (d < best[nextMask][next]) {
+                        best[nextMask][next] = Math.min(d, UNREACHABLE);
+                        previous[nextMask][next] = last;
+                    }
+                }
+            }
+        }
+
+        int last = 0;
+        for (int j = 1; j < m; j++) {
+            if (best[full][j] < best[full][last]) last = j;
+        }
+        int[] order = new int[n];
+        for (int k = n - 1, mask = full; k > 0; k--) {
+            order[k] = last + 1;
+            int before = previous[mask][last];
+            mask &= ~(1 << last);
+            last = before;
+        }
+        return order;
+    }
+
+    /**
+     * Nearest neighbor route, then 2-opt moves while they make it cheaper.
+     * Costs may differ by direction (terrain is paid on entering), so reversed
+     * segments are evaluated in full.
+     */
+    private static int[] improvedOrder(int[][] distance) {
+        int n = distance.length;
+        int[] order = new int[n];
+        boolean[] used = new boolean[n];
+        used[0] = true;
+        for (int k = 1; k < n; k++) {
+            int from = order[k - 1], next = -1;
+            for (int j = 1; j < n; j++) {
+                if (!used[j] && (next < 0 || distance[from][j] < distance[from][next])) next = j;
+            }
+            order[k] = next;
+            used[next] = true;
+        }
+
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 1; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    // Reverse order[i..j]
+                    long before = (long) distance[order[i - 1]][order[i]] + segment(distance, order, i, j, false)
+                                + (j + 1 < n ? distance[order[j]][order[j + 1]] : 0);
+                    long after  = (long) distance[order[i - 1]][order[j]] + segment(distance, order, i, j, true)
+                                + (j + 1 < n ? distance[order[i]][order[j + 1]] : 0);
+                    if (after < before) {
+                        for (int a = i, b = j; a < b; a++, b--) {
+                            int t = order[a];
+                            order[a] = order[b];
+                            order[b] = t;
+                        }
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Cost of walking order[i..j] forwards or backwards.
+     */
+    private static long segment(int[][] distance, int[] order, int i, int j, boolean reversed) {
+        long sum = 0;
+        for (int k = i; k < j; k++) {
+            sum += reversed ? distance[order[k + 1]][order[k]] : distance[order[k]][order[k + 1]];
+        }
+        return sum;
+    }
+
+    private static int[] identityOrder(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        return order;
+    }
+
+    /**
+     * Grows the arrays if needed and starts a new generation.
+     * @param size Number of ids in the topology
+     */
+    private void prepare(int size) {
+        if (cost.length < size) {
+            seen    = new int[size];
+            settled = new int[size];
+            cost    = new int[size];
+            checked = new int[size];
+            step    = new int[size];
+            parent  = new int[size];
+            target  = new int[size];
+            frontier.ensureCapacity(size);
+            generation = 0;
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(settled, 0);
+            Arrays.fill(checked, 0);
+            Arrays.fill(target, 0);
+            generation = 1;
+        }
+    }
+}
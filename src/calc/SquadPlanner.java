@@ -0,0 +1,706 @@
+package calc;
+
+import entities.Entity;
+import fx.Hexagon;
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import main.GraphicsHandler;
+
+/**
+ * Cooperative pathfinding for a group of creatures (windowed hierarchical cooperative A*).
+ * Every agent first gets the true distance to its goal from a reverse Dijkstra search that
+ * ignores the other agents. Those searches are independent, so they run in parallel on a
+ * fork/join pool. The agents then plan one after another through space and time: a
+ * reservation table records which agent stands on which tile at every timestep of the
+ * window, and later agents neither enter reserved tiles nor swap places with anyone.
+ * Half of each window is executed before everyone plans again, until all agents reached
+ * their goals or the time budget ran out. Members of the squad never block each other
+ * statically, only through their reservations.
+ */
+public class SquadPlanner {
+
+    // Timesteps planned ahead, every timestep is one step onto a neighbor or one wait
+    public static final int WINDOW = 16;
+    // Default time budget of one squad move
+    public static final int BUDGET_MILLIS = 100;
+    // Longest time budget a squad move may ask for, planning runs on the event thread
+    public static final int MAX_BUDGET_MILLIS = 1000;
+    // Timesteps executed per window before planning again
+    private static final int COMMIT = WINDOW / 2;
+    // Reverse searches continue this far past the start, later windows need distances around it
+    private static final int SLACK = 2 * WINDOW;
+    // Reverse searches settle at most this many tiles, the others are estimated from below
+    private static final int SETTLE_LIMIT = 1 << 16;
+    // Estimate of tiles the goal can't be reached from
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 4;
+    // Space-time nodes of one search: every tile within WINDOW steps, at every timestep
+    private static final int MAX_NODES = (WINDOW + 1) * (3 * WINDOW * (WINDOW + 1) + 1);
+    // Windows in a row without getting any closer before the squad counts as stuck
+    private static final int STALL_LIMIT = 4;
+    // Formation goals that are blocked move to the nearest free tile within this many tiles
+    private static final int GOAL_SEARCH_LIMIT = 1024;
+
+    /**
+     * Outcome of a squad move.
+     */
+    public static final class Plan {
+        private final List<ArrayList<Hexagon>> paths;
+        private final List<Hexagon> ends;
+        private final boolean complete;
+
+        private Plan(List<ArrayList<Hexagon>> paths, List<Hexagon> ends, boolean complete) {
+            this.paths    = paths;
+            this.ends     = ends;
+            this.complete = complete;
+        }
+
+        /**
+         * @return Tiles every agent walks over, in the order of the agents, starting on their tiles
+         */
+        public List<ArrayList<Hexagon>> getPaths() {
+            return paths;
+        }
+
+        /**
+         * @return Tile every agent ends on, in the order of the agents
+         */
+        public List<Hexagon> getEnds() {
+            return ends;
+        }
+
+        /**
+         * @return True if every agent reached its goal within the budget
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    /**
+     * State of one member of the squad.
+     */
+    private static final class Agent {
+        final int index;
+        final int size;
+        final int start;
+        int goal;
+        int position;
+        // Settled reverse distances, open addressing table id -> distance, null if the goal can't be reached
+        int[] settledId;
+        int[] settledDistance;
+        // Lower bound of every distance that wasn't settled
+        int reach;
+        // Anchor at every timestep of the current window
+        final int[] plan = new int[WINDOW + 1];
+        // Anchor at every executed timestep
+        int[] trajectory = new int[WINDOW];
+        int length = 0;
+
+        Agent(int index, int size, int start, int goal) {
+            this.index    = index;
+            this.size     = size;
+            this.start    = start;
+            this.goal     = goal;
+            this.position = start;
+        }
+
+        void append(int id) {
+            if (length == trajectory.length) trajectory = Arrays.copyOf(trajectory, length * 2);
+            trajectory[length++] = id;
+        }
+
+        /**
+         * @return The settled reverse distance of a tile, or -1 if it wasn't settled
+         */
+        int distance(int id) {
+            int mask = settledId.length - 1;
+            for (int slot = (id * 0x9E3779B9) & mask; settledId[slot] >= 0; slot = (slot + 1) & mask) {
+                if (settledId[slot] == id) return settledDistance[slot];
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * State of one reverse search, reused across agents and squad moves.
+     */
+    private static final class Scratch {
+        int[] seen      = new int[0];  // Generation in which tentative was written
+        int[] settled   = new int[0];  // Generation in which the tile was expanded
+        int[] tentative = new int[0];  // Best known distance, valid if seen matches
+        int[] checked   = new int[0];  // Generation in which step was written
+        int[] step      = new int[0];  // Cost of entering the tile, -1 if blocked
+        int[] order     = new int[0];  // Settled ids of the current search, in order
+        int generation  = 0;
+        final BucketQueue queue = new BucketQueue(TerrainLayer.MAX_COST + 1);
+        final int[] buffer = new int[Footprint.MAX_TILES];
+
+        /**
+         * Grows the arrays if needed and starts a new generation.
+         * @param size Number of ids in the topology
+         */
+        void prepare(int size) {
+            if (seen.length < size) {
+                seen      = new int[size];
+                settled   = new int[size];
+                tentative = new int[size];
+                checked   = new int[size];
+                step      = new int[size];
+                order     = new int[Math.min(size, SETTLE_LIMIT)];
+                queue.ensureCapacity(size);
+                generation = 0;
+            }
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(settled, 0);
+                Arrays.fill(checked, 0);
+                generation = 1;
+            }
+        }
+    }
+
+    private final ForkJoinPool pool;
+    // Reverse search states, at most one per pool thread is kept between searches
+    private final ArrayBlockingQueue<Scratch> scratch;
+
+    // Space-time nodes of the current search
+    private final int[] nodeTile   = new int[MAX_NODES];
+    private final int[] nodeTime   = new int[MAX_NODES];
+    private final int[] nodeCost   = new int[MAX_NODES];
+    private final int[] nodeParent = new int[MAX_NODES];
+    private final boolean[] nodeClosed = new boolean[MAX_NODES];
+    private int nodeCount = 0;
+
+    // Open addressing table (tile, time) -> node, a slot is empty unless its stamp matches
+    private final long[] slotKey   = new long[Integer.highestOneBit(MAX_NODES) << 2];
+    private final int[]  slotNode  = new int[slotKey.length];
+    private final int[]  slotStamp = new int[slotKey.length];
+    private int search = 0;
+
+    // Open addressing table (tile, time) -> agent, a slot is empty unless its stamp matches
+    private long[] reservedKey   = new long[0];
+    private int[]  reservedOwner = new int[0];
+    private int[]  reservedStamp = new int[0];
+    private int reservation = 0;
+
+    // Cost of stepping onto a tile for the agent being planned, valid if stepStamp matches
+    private int[] stepStamp = new int[0];
+    private int[] stepValue = new int[0];
+
+    // Open list keyed by f-cost. One step raises f by at most twice MAX_COST with a consistent estimate
+    private final BucketQueue open = new BucketQueue(2 * TerrainLayer.MAX_COST + 2);
+
+    // Scratch buffers for footprint ids
+    private final int[] target = new int[Footprint.MAX_TILES];
+    private final int[] origin = new int[Footprint.MAX_TILES];
+
+    /**
+     * Creates a planner.
+     * @param pool Pool the reverse searches of the agents run on
+     */
+    public SquadPlanner(ForkJoinPool pool) {
+        this.pool    = pool;
+        this.scratch = new ArrayBlockingQueue<>(pool.getParallelism());
+        open.ensureCapacity(MAX_NODES);
+    }
+
+    /**
+     * Plans collision free paths for a group of characters.
+     * No two agents ever cover the same tile at the same timestep or swap tiles in one step.
+     * Agents that can't reach their goal in time end on the last tile they got to.
+     * @param agents Characters to move, each standing on a tile
+     * @param goals Goal of every agent, in the same order
+     * @param budgetMillis Time the planning may take
+     * @param gh GraphicsHandler containing game state
+     * @return The paths and end tiles of all agents
+     */
+    public Plan plan(List<? extends Entity> agents, List<Hexagon> goals, long budgetMillis, GraphicsHandler gh) {
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        GridTopology topology = gh.getTopology();
+        OccupancyIndex occupancy = gh.occupancy;
+        TerrainLayer terrain = gh.terrain;
+        Map<Entity, Boolean> squad = squadOf(agents);
+
+        List<Agent> members = new ArrayList<>();
+        for (int i = 0; i < agents.size(); i++) {
+            int start = topology.id(agents.get(i).getTile());
+            int goal  = topology.id(goals.get(i));
+            members.add(new Agent(i, agents.get(i).getSize(), start, goal < 0 ? start : goal));
+        }
+
+        // Distances to the goals don't depend on each other, every agent gets its own task
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Agent a : members) {
+            tasks.add(pool.submit(() -> measure(a, deadline, topology, occupancy, terrain, squad)));
+        }
+        for (ForkJoinTask<?> task : tasks) task.join();
+        boolean reachable = true;
+        for (Agent a : members) {
+            if (a.distance(a.start) < 0 && a.reach >= UNREACHABLE) {
+                // The goal lies in another region, the agent only steps aside if others need to pass
+                a.goal = a.start;
+                a.settledId = null;
+                reachable = false;
+            }
+            a.append(a.start);
+        }
+
+        // Agents with the longest way plan first
+        List<Agent> order = new ArrayList<>(members);
+        order.sort(Comparator.comparingInt((Agent a) -> estimate(a, a.start, topology)).reversed());
+
+        prepare(topology.size(), members.size());
+        boolean arrived = arrived(members);
+        long best = remaining(members, topology);
+        int stalled = 0;
+        while (!arrived && stalled < STALL_LIMIT && System.nanoTime() < deadline) {
+            if (!planWindow(members, order, deadline, topology, occupancy, terrain, squad)) break;
+
+            for (Agent a : members) {
+                for (int t = 1; t <= COMMIT; t++) a.append(a.plan[t]);
+                a.position = a.plan[COMMIT];
+            }
+            arrived = arrived(members);
+            // Agents that block each other's goals would otherwise shuffle around until the deadline
+            long left = remaining(members, topology);
+            stalled = left < best ? 0 : stalled + 1;
+            best = Math.min(best, left);
+        }
+
+        List<ArrayList<Hexagon>> paths = new ArrayList<>();
+        List<Hexagon> ends = new ArrayList<>();
+        for (Agent a : members) {
+            ArrayList<Hexagon> path = new ArrayList<>();
+            for (int k = 0; k < a.length; k++) {
+                // Waits don't show up in the path
+                if (k == 0 || a.trajectory[k] != a.trajectory[k - 1]) path.add(gh.world.tile(a.trajectory[k]));
+            }
+            paths.add(path);
+            ends.add(gh.world.tile(a.position));
+        }
+        return new Plan(paths, ends, arrived && reachable);
+    }
+
+    /**
+     * Picks goals that keep the squad's formation, translated so the first agent ends on the target.
+     * Goals that are blocked or taken by another agent move to the nearest free tile.
+     * @param agents Characters to move, each standing on a tile
+     * @param target Goal of the first agent
+     * @param gh GraphicsHandler containing game state
+     * @return Goal of every agent, in the same order
+     */
+    public static List<Hexagon> formation(List<? extends Entity> agents, Hexagon target, GraphicsHandler gh) {
+        GridTopology topology = gh.getTopology();
+        boolean isFlat = topology.isFlat();
+        Map<Entity, Boolean> squad = squadOf(agents);
+        int[] buffer = new int[Footprint.MAX_TILES];
+        Set<Integer> taken = new HashSet<>();
+
+        List<Hexagon> goals = new ArrayList<>();
+        int[] leader = cube(agents.get(0).getTile().getGridPoint(), isFlat);
+        int[] to     = cube(target.getGridPoint(), isFlat);
+        for (Entity e : agents) {
+            int[] from = cube(e.getTile().getGridPoint(), isFlat);
+            Point p = point(new int[] {to[0] + from[0] - leader[0], to[1] + from[1] - leader[1], to[2] + from[2] - leader[2]}, isFlat);
+            int wanted = topology.id(p.x, p.y);
+            int goal = nearestFree(wanted < 0 ? topology.id(target) : wanted, e.getSize(), taken, buffer,
+                                   topology, gh.occupancy, gh.terrain, squad);
+            if (goal < 0) goal = topology.id(e.getTile());
+            int count = Footprint.apply(goal, e.getSize(), topology, buffer);
+            for (int i = 0; i < count; i++) {
+                if (buffer[i] >= 0) taken.add(buffer[i]);
+            }
+            goals.add(gh.world.tile(goal));
+        }
+        return goals;
+    }
+
+    /**
+     * Breadth first search for the closest anchor the agent fits on without touching taken tiles.
+     * @return The anchor id, or -1 if there is none nearby
+     */
+    private static int nearestFree(int from, int size, Set<Integer> taken, int[] buffer, GridTopology topology,
+                                   OccupancyIndex occupancy, TerrainLayer terrain, Map<Entity, Boolean> squad) {
+        if (from < 0) return -1;
+        Set<Integer> visited = new HashSet<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(from);
+        visited.add(from);
+        for (int visits = 0; !queue.isEmpty() && visits < GOAL_SEARCH_LIMIT; visits++) {
+            int id = queue.poll();
+            if (stepCost(id, size, buffer, topology, occupancy, terrain, squad) >= 0 && !overlaps(buffer, size, taken)) {
+                return id;
+            }
+            for (int dir = 0; dir < 6; dir++) {
+                int neighbor = topology.neighbor(id, dir);
+                if (neighbor < 0 || !visited.add(neighbor)) continue;
+                queue.add(neighbor);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return True if any tile of the footprint in the buffer is taken
+     */
+    private static boolean overlaps(int[] buffer, int size, Set<Integer> taken) {
+        for (int i = 0; i < Footprint.tileCount(size); i++) {
+            if (taken.contains(buffer[i])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reverse Dijkstra from an agent's goal, run on the pool.
+     * Entering a tile costs its terrain cost, so the distance from a tile is the cost of all
+     * tiles entered after it. Stops once everything within SLACK of the start is settled, or
+     * at the deadline; unsettled tiles are then estimated from below. Only reads the game
+     * state, writes the agent's own fields and a scratch no other task holds at the same time.
+     */
+    private void measure(Agent a, long deadline, GridTopology topology, OccupancyIndex occupancy,
+                         TerrainLayer terrain, Map<Entity, Boolean> squad) {
+        Scratch s = scratch.poll();
+        if (s == null) s = new Scratch();
+        s.prepare(topology.size());
+        int generation = s.generation;
+
+        int limit = UNREACHABLE;
+        int settledCount = 0;
+        a.reach = UNREACHABLE;
+        s.seen[a.goal] = generation;
+        s.tentative[a.goal] = 0;
+        s.queue.pushOrDecrease(a.goal, 0);
+        while (!s.queue.isEmpty()) {
+            int priority = s.queue.peekPriority();
+            if (priority > limit || settledCount == s.order.length
+                || ((settledCount & 1023) == 1023 && System.nanoTime() >= deadline)) {
+                a.reach = priority;
+                break;
+            }
+            int current = s.queue.pop();
+            s.settled[current] = generation;
+            s.order[settledCount++] = current;
+            if (current == a.start) limit = s.tentative[current] + SLACK;
+
+            int enter = Math.max(step(s, current, a.size, topology, occupancy, terrain, squad), 0);
+            for (int dir = 0; dir < 6; dir++) {
+                int neighbor = topology.neighbor(current, dir);
+                if (neighbor < 0 || s.settled[neighbor] == generation) continue;
+                if (step(s, neighbor, a.size, topology, occupancy, terrain, squad) < 0) continue;
+
+                int c = s.tentative[current] + enter;
+                if (s.seen[neighbor] == generation && c >= s.tentative[neighbor]) continue;
+                s.seen[neighbor] = generation;
+                s.tentative[neighbor] = c;
+                s.queue.pushOrDecrease(neighbor, c);
+            }
+        }
+        s.queue.clear();
+
+        // Keep only the settled tiles, the scratch goes back to the planner
+        int capacity = Integer.highestOneBit(Math.max(settledCount, 1)) << 2;
+        a.settledId       = new int[capacity];
+        a.settledDistance = new int[capacity];
+        Arrays.fill(a.settledId, -1);
+        int mask = capacity - 1;
+        for (int i = 0; i < settledCount; i++) {
+            int id = s.order[i];
+            int slot = (id * 0x9E3779B9) & mask;
+            while (a.settledId[slot] >= 0) slot = (slot + 1) & mask;
+            a.settledId[slot]       = id;
+            a.settledDistance[slot] = s.tentative[id];
+        }
+        // Dropped if the pool grew past its parallelism for a moment
+        scratch.offer(s);
+    }
+
+    /**
+     * Cost of entering a tile for a reverse search, computed once per search.
+     * @return The cost, or -1 if blocked
+     */
+    private static int step(Scratch s, int id, int size, GridTopology topology, OccupancyIndex occupancy,
+                            TerrainLayer terrain, Map<Entity, Boolean> squad) {
+        if (s.checked[id] != s.generation) {
+            s.checked[id] = s.generation;
+            s.step[id] = stepCost(id, size, s.buffer, topology, occupancy, terrain, squad);
+        }
+        return s.step[id];
+    }
+
+    /**
+     * Lower bound of an agent's remaining cost from a tile, consistent along every step.
+     * Tiles the reverse search didn't settle are at least reach away.
+     */
+    private static int estimate(Agent a, int id, GridTopology topology) {
+        int straight = Calc.hexDistance(topology.row(id), topology.col(id),
+                                        topology.row(a.goal), topology.col(a.goal), topology.isFlat());
+        if (a.settledId == null) return straight;
+        int distance = a.distance(id);
+        if (distance >= 0) return distance;
+        if (a.reach >= UNREACHABLE) return UNREACHABLE;
+        return Math.max(a.reach, straight);
+    }
+
+    /**
+     * Plans one window for every agent in priority order.
+     * An agent that finds no way through the reservations moves to the front and the window
+     * is planned again, at most once per agent.
+     * @return False if the window couldn't be planned in time
+     */
+    private boolean planWindow(List<Agent> members, List<Agent> order, long deadline, GridTopology topology,
+                               OccupancyIndex occupancy, TerrainLayer terrain, Map<Entity, Boolean> squad) {
+        for (int attempt = 0; attempt <= order.size(); attempt++) {
+            clearReservations();
+            // Nobody can be pushed off a tile before it had a chance to plan
+            for (Agent a : members) {
+                reserve(a.index, a.size, a.position, 0, topology);
+                reserve(a.index, a.size, a.position, 1, topology);
+            }
+
+            int failed = -1;
+            for (int i = 0; i < order.size() && failed < 0; i++) {
+                if (System.nanoTime() >= deadline) return false;
+                Agent a = order.get(i);
+                if (!search(a, topology, occupancy, terrain, squad)) {
+                    failed = i;
+                    continue;
+                }
+                for (int t = 0; t <= WINDOW; t++) reserve(a.index, a.size, a.plan[t], t, topology);
+            }
+            if (failed < 0) return true;
+            order.add(0, order.remove(failed));
+        }
+        return false;
+    }
+
+    /**
+     * Space-time A* over one window, avoiding the reservations of the agents planned before.
+     * Waiting costs one per timestep except on the goal, every step costs the terrain.
+     * @return True if a plan for the whole window was written to the agent
+     */
+    private boolean search(Agent a, GridTopology topology, OccupancyIndex occupancy,
+                           TerrainLayer terrain, Map<Entity, Boolean> squad) {
+        newSearch();
+        int root = create(a.position, 0);
+        nodeCost[root] = 0;
+        nodeParent[root] = -1;
+        open.clear();
+        open.pushOrDecrease(root, estimate(a, a.position, topology));
+
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            nodeClosed[current] = true;
+            int tile = nodeTile[current], time = nodeTime[current];
+            if (time == WINDOW) {
+                open.clear();
+                for (int k = current; k >= 0; k = nodeParent[k]) a.plan[nodeTime[k]] = nodeTile[k];
+                return true;
+            }
+
+            // Direction -1 is waiting on the tile
+            for (int dir = -1; dir < 6; dir++) {
+                int next = dir < 0 ? tile : topology.neighbor(tile, dir);
+                if (next < 0) continue;
+                int step = dir < 0 ? (tile == a.goal ? 0 : 1) : step(next, a.size, topology, occupancy, terrain, squad);
+                if (step < 0) continue;
+                int h = estimate(a, next, topology);
+                if (h >= UNREACHABLE || !isFree(a.index, a.size, tile, next, time, topology)) continue;
+
+                int g = nodeCost[current] + step;
+                int k = find(next, time + 1);
+                if (k < 0) {
+                    if (nodeCount == MAX_NODES) continue;
+                    k = create(next, time + 1);
+                } else if (nodeClosed[k] || g >= nodeCost[k]) {
+                    continue;
+                }
+                nodeCost[k] = g;
+                nodeParent[k] = current;
+                open.pushOrDecrease(k, g + h);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an agent may move from one anchor to another between two timesteps.
+     * The new footprint must be unreserved at the next timestep, and no other agent may
+     * be moving the opposite way onto the old footprint at the same time.
+     */
+    private boolean isFree(int agent, int size, int from, int to, int time, GridTopology topology) {
+        int count = Footprint.apply(to, size, topology, target);
+        int fromCount = Footprint.apply(from, size, topology, origin);
+        for (int i = 0; i < count; i++) {
+            int owner = owner(target[i], time + 1);
+            if (owner >= 0 && owner != agent) return false;
+
+            owner = owner(target[i], time);
+            if (owner < 0 || owner == agent) continue;
+            for (int j = 0; j < fromCount; j++) {
+                if (owner(origin[j], time + 1) == owner) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cost of stepping onto a tile for the agent being planned, computed once per search.
+     */
+    private int step(int id, int size, GridTopology topology, OccupancyIndex occupancy,
+                     TerrainLayer terrain, Map<Entity, Boolean> squad) {
+        if (stepStamp[id] != search) {
+            stepStamp[id] = search;
+            stepValue[id] = stepCost(id, size, target, topology, occupancy, terrain, squad);
+        }
+        return stepValue[id];
+    }
+
+    /**
+     * Cost of moving a footprint onto an anchor, the highest terrain cost under it.
+     * Only entities outside the squad block. Leaves the footprint ids in the buffer.
+     * @return The cost, or -1 if the footprint leaves the grid or hits another entity
+     */
+    private static int stepCost(int id, int size, int[] buffer, GridTopology topology,
+                                OccupancyIndex occupancy, TerrainLayer terrain, Map<Entity, Boolean> squad) {
+        int count = Footprint.apply(id, size, topology, buffer);
+        int cost = TerrainLayer.DEFAULT_COST;
+        for (int i = 0; i < count; i++) {
+            if (buffer[i] < 0) return -1;
+            int row = topology.row(buffer[i]), col = topology.col(buffer[i]);
+            Entity e = occupancy.get(row, col);
+            if (e != null && !squad.containsKey(e)) return -1;
+            cost = Math.max(cost, terrain.cost(row, col));
+        }
+        return cost;
+    }
+
+    private static boolean arrived(List<Agent> members) {
+        for (Agent a : members) {
+            if (a.position != a.goal) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return Sum of the estimated remaining costs of all agents
+     */
+    private static long remaining(List<Agent> members, GridTopology topology) {
+        long sum = 0;
+        for (Agent a : members) sum += estimate(a, a.position, topology);
+        return sum;
+    }
+
+    private static Map<Entity, Boolean> squadOf(List<? extends Entity> agents) {
+        Map<Entity, Boolean> squad = new IdentityHashMap<>();
+        for (Entity e : agents) squad.put(e, Boolean.TRUE);
+        return squad;
+    }
+
+    // Pointy grids shift rows instead of columns, so the axes are swapped like in Calc.hexDistance
+    private static int[] cube(Point p, boolean isFlat) {
+        return isFlat ? Calc.toCubeCoordinate(p.x, p.y) : Calc.toCubeCoordinate(p.y, p.x);
+    }
+
+    private static Point point(int[] cube, boolean isFlat) {
+        Point p = Calc.toPoint(cube);
+        return isFlat ? p : new Point(p.y, p.x);
+    }
+
+    // Tables -----------------------------------------------------------
+
+    private static long key(int id, int time) {
+        return ((long) time << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long k, int length) {
+        return (int) ((k * 0x9E3779B97F4A7C15L) >>> 32) & (length - 1);
+    }
+
+    /**
+     * Grows the tables for a topology and a number of agents.
+     */
+    private void prepare(int size, int agents) {
+        if (stepStamp.length < size) {
+            stepStamp = new int[size];
+            stepValue = new int[size];
+            search = 0;
+        }
+        // Every agent reserves its footprint at each timestep plus its start once more, at most half full
+        int capacity = Integer.highestOneBit(Math.max(16, agents * Footprint.MAX_TILES * (WINDOW + 2))) << 2;
+        if (reservedKey.length < capacity) {
+            reservedKey   = new long[capacity];
+            reservedOwner = new int[capacity];
+            reservedStamp = new int[capacity];
+            reservation = 0;
+        }
+    }
+
+    private void newSearch() {
+        nodeCount = 0;
+        if (++search == Integer.MAX_VALUE) {
+            Arrays.fill(slotStamp, 0);
+            Arrays.fill(stepStamp, 0);
+            search = 1;
+        }
+    }
+
+    private int find(int id, int time) {
+        long k = key(id, time);
+        for (int i = slot(k, slotKey.length); slotStamp[i] == search; i = (i + 1) & (slotKey.length - 1)) {
+            if (slotKey[i] == k) return slotNode[i];
+        }
+        return -1;
+    }
+
+    private int create(int id, int time) {
+        long k = key(id, time);
+        int i = slot(k, slotKey.length);
+        while (slotStamp[i] == search) i = (i + 1) & (slotKey.length - 1);
+        int node = nodeCount++;
+        slotStamp[i] = search;
+        slotKey[i]   = k;
+        slotNode[i]  = node;
+        nodeTile[node]   = id;
+        nodeTime[node]   = time;
+        nodeClosed[node] = false;
+        return node;
+    }
+
+    private void clearReservations() {
+        if (++reservation == Integer.MAX_VALUE) {
+            Arrays.fill(reservedStamp, 0);
+            reservation = 1;
+        }
+    }
+
+    private void reserve(int agent, int size, int anchor, int time, GridTopology topology) {
+        int count = Footprint.apply(anchor, size, topology, origin);
+        for (int j = 0; j < count; j++) {
+            long k = key(origin[j], time);
+            int i = slot(k, reservedKey.length);
+            while (reservedStamp[i] == reservation && reservedKey[i] != k) i = (i + 1) & (reservedKey.length - 1);
+            reservedStamp[i] = reservation;
+            reservedKey[i]   = k;
+            reservedOwner[i] = agent;
+        }
+    }
+
+    private int owner(int id, int time) {
+        long k = key(id, time);
+        for (int i = slot(k, reservedKey.length); reservedStamp[i] == reservation; i = (i + 1) & (reservedKey.length - 1)) {
+            if (reservedKey[i] == k) return reservedOwner[i];
+        }
+        return -1;
+    }
+}
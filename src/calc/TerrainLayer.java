@@ -0,0 +1,152 @@
+package calc;
+
+import fx.Hexagon;
+import java.util.Arrays;
+
+/**
+ * Movement cost of every tile, e.g. 2 for difficult terrain or 3 for deep water.
+ * Costs are stored as bytes in a row-major array covering the rectangle of all
+ * tiles that ever had a cost set; every tile outside of it costs DEFAULT_COST.
+ * The rectangle grows on demand, lookups are a bounds check and an array read.
+ */
+public class TerrainLayer {
+
+    public static final int DEFAULT_COST = 1;
+    public static final int MAX_COST     = 9;
+
+    // Covered rectangle in grid coordinates
+    private int firstRow = 0, firstCol = 0, rows = 0, cols = 0;
+    private byte[] costs = new byte[0];
+    // Number of tiles with a cost other than DEFAULT_COST
+    private int modified = 0;
+    // Bumped on every change
+    private int epoch = 0;
+    // Scratch buffers for footprint coordinates
+    private final int[] rowBuffer = new int[Footprint.MAX_TILES];
+    private final int[] colBuffer = new int[Footprint.MAX_TILES];
+
+    /**
+     * Gets the cost of entering a tile.
+     * @param row Grid row (x of the grid point)
+     * @param col Grid column (y of the grid point)
+     * @return Movement cost between DEFAULT_COST and MAX_COST
+     */
+    public int cost(int row, int col) {
+        int r = row - firstRow, c = col - firstCol;
+        if (r < 0 || c < 0 || r >= rows || c >= cols) return DEFAULT_COST;
+        return costs[r * cols + c];
+    }
+
+    /**
+     * Gets the cost of entering a hexagon.
+     * @param hex Target hexagon
+     * @return Movement cost between DEFAULT_COST and MAX_COST
+     */
+    public int cost(Hexagon hex) {
+        return cost(hex.getGridPoint().x, hex.getGridPoint().y);
+    }
+
+    /**
+     * Gets the cost of moving a creature's footprint onto an anchor tile,
+     * which is the highest cost of any tile it covers.
+     * @param row Anchor row
+     * @param col Anchor column
+     * @param size Size category
+     * @param isFlat Grid orientation
+     * @return Movement cost between DEFAULT_COST and MAX_COST
+     */
+    public int footprintCost(int row, int col, int size, boolean isFlat) {
+        if (modified == 0) return DEFAULT_COST;
+        int count = Footprint.apply(row, col, size, isFlat, rowBuffer, colBuffer);
+        int cost = DEFAULT_COST;
+        for (int i = 0; i < count; i++) {
+            cost = Math.max(cost, cost(rowBuffer[i], colBuffer[i]));
+        }
+        return cost;
+    }
+
+    /**
+     * Sets the cost of entering a tile.
+     * @param row Grid row
+     * @param col Grid column
+     * @param cost New movement cost, clamped to DEFAULT_COST..MAX_COST
+     */
+    public void setCost(int row, int col, int cost) {
+        cost = Math.max(DEFAULT_COST, Math.min(MAX_COST, cost));
+        if (cost == cost(row, col)) return;
+
+        ensureCovered(row, col);
+        int i = (row - firstRow) * cols + (col - firstCol);
+        if (costs[i] == DEFAULT_COST) modified++;
+        if (cost == DEFAULT_COST) modified--;
+        costs[i] = (byte) cost;
+        epoch++;
+    }
+
+    /**
+     * Sets the cost of entering a hexagon.
+     * @param hex Target hexagon
+     * @param cost New movement cost
+     */
+    public void setCost(Hexagon hex, int cost) {
+        setCost(hex.getGridPoint().x, hex.getGridPoint().y, cost);
+    }
+
+    /**
+     * @return True if every tile has the default cost
+     */
+    public boolean isUniform() {
+        return modified == 0;
+    }
+
+    /**
+     * @return Counter that changes whenever a cost changes
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Resets every tile to the default cost.
+     */
+    public void clear() {
+        firstRow = firstCol = rows = cols = 0;
+        costs = new byte[0];
+        modified = 0;
+        epoch++;
+    }
+
+    /**
+     * Grows the covered rectangle so it contains the given tile.
+     * Grows by at least half the current size per axis so setting many tiles one by one stays cheap.
+     */
+    private void ensureCovered(int row, int col) {
+        int r = row - firstRow, c = col - firstCol;
+        if (rows > 0 && r >= 0 && c >= 0 && r < rows && c < cols) return;
+
+        int newFirstRow, newFirstCol, newLastRow, newLastCol;
+        if (rows == 0) {
+            newFirstRow = row - 8;  newLastRow = row + 8;
+            newFirstCol = col - 8;  newLastCol = col + 8;
+        } else {
+            int padRows = Math.max(8, rows / 2), padCols = Math.max(8, cols / 2);
+            newFirstRow = Math.min(firstRow, row < firstRow ? row - padRows : firstRow);
+            newLastRow  = Math.max(firstRow + rows - 1, row >= firstRow + rows ? row + padRows : row);
+            newFirstCol = Math.min(firstCol, col < firstCol ? col - padCols : firstCol);
+            newLastCol  = Math.max(firstCol + cols - 1, col >= firstCol + cols ? col + padCols : col);
+        }
+
+        int newRows = newLastRow - newFirstRow + 1;
+        int newCols = newLastCol - newFirstCol + 1;
+        byte[] grown = new byte[newRows * newCols];
+        Arrays.fill(grown, (byte) DEFAULT_COST);
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(costs, i * cols, grown,
+                (firstRow + i - newFirstRow) * newCols + (firstCol - newFirstCol), cols);
+        }
+
+        firstRow = newFirstRow;  firstCol = newFirstCol;
+        rows     = newRows;      cols     = newCols;
+        costs    = grown;
+    }
+}
@@ -0,0 +1,95 @@
+package calc;
+
+import fx.Hexagon;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Set of world tiles used for selections and highlights.
+ * Membership is a bit per world id, so contains, add and the duplicate check are O(1),
+ * and tiles are also kept in insertion order for drawing and for getFirst. Since world
+ * tiles persist for the whole session, the stored hexagons never have to be re-resolved.
+ */
+public class TileSet implements Iterable<Hexagon> {
+
+    private final WorldGrid world;
+    private final BitSet members = new BitSet();
+    private final ArrayList<Hexagon> tiles = new ArrayList<>();
+
+    /**
+     * Creates an empty set.
+     * @param world World grid whose ids key the set
+     */
+    public TileSet(WorldGrid world) {
+        this.world = world;
+    }
+
+    /**
+     * Adds a tile unless it is already in the set.
+     * @param hex Tile to add, null and tiles outside the world are ignored
+     * @return True if the set changed
+     */
+    public boolean add(Hexagon hex) {
+        int id = world.getTopology().id(hex);
+        if (id < 0 || members.get(id)) return false;
+        members.set(id);
+        tiles.add(hex);
+        return true;
+    }
+
+    /**
+     * Removes a tile. Takes linear time in the size of the set to keep the order.
+     * @param hex Tile to remove
+     * @return True if the tile was in the set
+     */
+    public boolean remove(Hexagon hex) {
+        int id = world.getTopology().id(hex);
+        if (id < 0 || !members.get(id)) return false;
+        members.clear(id);
+        for (int i = 0; i < tiles.size(); i++) {
+            if (world.getTopology().id(tiles.get(i)) == id) {
+                tiles.remove(i);
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param hex Tile to check, may be null
+     * @return True if a tile with the same grid coordinates is in the set
+     */
+    public boolean contains(Hexagon hex) {
+        int id = world.getTopology().id(hex);
+        return id >= 0 && members.get(id);
+    }
+
+    public void clear() {
+        members.clear();
+        tiles.clear();
+    }
+
+    public boolean isEmpty() {
+        return tiles.isEmpty();
+    }
+
+    public int size() {
+        return tiles.size();
+    }
+
+    public Hexagon get(int index) {
+        return tiles.get(index);
+    }
+
+    public Hexagon getFirst() {
+        return tiles.getFirst();
+    }
+
+    @Override
+    public Iterator<Hexagon> iterator() {
+        // Read-only, removals have to go through remove to keep the bits in sync
+        return Collections.unmodifiableList(tiles).iterator();
+    }
+}
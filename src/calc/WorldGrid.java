@@ -0,0 +1,121 @@
+package calc;
+
+import fx.HexLayout;
+import fx.Hexagon;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+
+/**
+ * Persistent model of the whole map.
+ * Owns one hexagon per tile for the entire session, addressed by the ids of a
+ * neighbor index over fixed world bounds. Pixel geometry is not stored here: the
+ * hexagons derive it from the shared layout on demand, so panning and zooming don't
+ * touch the model, and pathfinding and area queries see the same tiles no matter
+ * which part of the map is on screen.
+ */
+public class WorldGrid {
+
+    // Fixed world bounds in grid coordinates centred on the origin, big enough for any battle map
+    public static final int FIRST_ROW = -256;
+    public static final int FIRST_COL = -256;
+    public static final int ROWS      = 512;
+    public static final int COLS      = 512;
+
+    private static final Rectangle BOUNDS = new Rectangle(FIRST_ROW, FIRST_COL, ROWS, COLS);
+
+    private final HexLayout layout;
+    // Hexagon per id, created the first time a tile is asked for
+    private final Hexagon[] tiles = new Hexagon[ROWS * COLS];
+    // Neighbor index for the current orientation
+    private GridTopology topology;
+
+    /**
+     * Creates the world grid.
+     * @param layout Layout the tiles derive their geometry from
+     * @param isFlat Initial grid orientation
+     */
+    public WorldGrid(HexLayout layout, boolean isFlat) {
+        this.layout   = layout;
+        this.topology = new GridTopology(BOUNDS, isFlat);
+    }
+
+    /**
+     * Calculates the pixel area spanned by the tile centers of the world, for a layout with its origin at 0, 0.
+     * @param hexSize Size of the hexagons
+     * @param isFlat Grid orientation
+     * @return The area between the centers of the first and the last tile
+     */
+    public static Rectangle2D extent(int hexSize, boolean isFlat) {
+        HexLayout origin = new HexLayout();
+        origin.update(hexSize, 0, 0, isFlat);
+        Point2D first = origin.center(FIRST_ROW, FIRST_COL);
+        Point2D last  = origin.center(FIRST_ROW + ROWS - 1, FIRST_COL + COLS - 1);
+        return new Rectangle2D.Double(first.getX(), first.getY(), last.getX() - first.getX(), last.getY() - first.getY());
+    }
+
+    /**
+     * Rebuilds the neighbor index if the orientation changed. Tiles keep their identity.
+     * @param isFlat New grid orientation
+     */
+    public void setFlat(boolean isFlat) {
+        if (!topology.matches(BOUNDS, isFlat)) {
+            topology = new GridTopology(BOUNDS, isFlat);
+        }
+    }
+
+    /**
+     * Gets the hexagon for an id.
+     * @param id Tile id
+     * @return The hexagon, or null for invalid ids
+     */
+    public Hexagon tile(int id) {
+        if (id < 0 || id >= tiles.length) return null;
+        Hexagon hex = tiles[id];
+        if (hex == null) {
+            hex = new Hexagon(new Point(topology.row(id), topology.col(id)), layout);
+            tiles[id] = hex;
+        }
+        return hex;
+    }
+
+    /**
+     * Gets the hexagon at grid coordinates.
+     * @param row Grid row (x of the grid point)
+     * @param col Grid column (y of the grid point)
+     * @return The hexagon, or null if the coordinates lie outside the world
+     */
+    public Hexagon tile(int row, int col) {
+        return tile(topology.id(row, col));
+    }
+
+    /**
+     * Collects all tiles inside a block of grid coordinates, clipped to the world.
+     * @param bounds Block to collect (x = first row, y = first column, width = rows, height = columns)
+     * @return The tiles in row-major order
+     */
+    public ArrayList<Hexagon> tilesIn(Rectangle bounds) {
+        int firstRow = Math.max(FIRST_ROW, bounds.x);
+        int firstCol = Math.max(FIRST_COL, bounds.y);
+        int lastRow  = Math.min(FIRST_ROW + ROWS, bounds.x + bounds.width)  - 1;
+        int lastCol  = Math.min(FIRST_COL + COLS, bounds.y + bounds.height) - 1;
+
+        ArrayList<Hexagon> result = new ArrayList<>();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                result.add(tile(row, col));
+            }
+        }
+        return result;
+    }
+
+    public GridTopology getTopology() {
+        return topology;
+    }
+
+    public HexLayout getLayout() {
+        return layout;
+    }
+}
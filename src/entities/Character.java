@@ -1,12 +1,12 @@
 package entities;
 
-import calc.AStar;
 import calc.Calc;
+import calc.Footprint;
+import calc.GridTopology;
 import fx.*;
 import java.awt.Image;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
-import java.util.Arrays;
 import main.GraphicsHandler;
 
 /**
@@ -82,31 +82,17 @@ public class Character extends Entity
      * @return List of occupied hexagon tiles
      */
     public static ArrayList<Hexagon> getOccupiedTiles(Hexagon h, int size, GraphicsHandler gh) {
-        ArrayList<Hexagon> occupiedTiles = new ArrayList<>();
-        Hexagon[] neighbors = AStar.getNeighbors(h, gh);
+        ArrayList<Hexagon> occupiedTiles = new ArrayList<>(Footprint.tileCount(size));
+        GridTopology topology = gh.getTopology();
+        int center = topology.id(h);
         occupiedTiles.add(h);
-        switch (size) {
-            case TINY       -> {}  // Occupies only center tile
-            case SMALL      -> {}  // Occupies only center tile
-            case NORMAL     -> {}  // Occupies only center tile
-            case LARGE      -> {   // Occupies center + 2 adjacent tiles
-                occupiedTiles.add(neighbors[1]);
-                occupiedTiles.add(neighbors[2]);
-            }
-            case HUGE       -> {   // Occupies center + all adjacent tiles
-                occupiedTiles.addAll(Arrays.asList(neighbors));
-            }
-            case GARGANTUAN -> {   // Occupies center + all adjacent + additional outer tiles
-                occupiedTiles.addAll(Arrays.asList(neighbors));
-                Hexagon[] neighbors2 = AStar.getNeighbors(neighbors[1], gh);
-                Hexagon[] neighbors3 = AStar.getNeighbors(neighbors[2], gh);
-                occupiedTiles.add(neighbors2[0]);
-                occupiedTiles.add(neighbors2[1]);
-                occupiedTiles.add(neighbors2[2]);
-                occupiedTiles.add(neighbors3[2]);
-                occupiedTiles.add(neighbors3[3]);
-            }
-            default         -> {}
+        if (center < 0) return occupiedTiles;
+
+        // Tiles outside the world are added as null
+        int[] ids = new int[Footprint.MAX_TILES];
+        int count = Footprint.apply(center, size, topology, ids);
+        for (int i = 1; i < count; i++) {
+            occupiedTiles.add(gh.world.tile(ids[i]));
         }
         return occupiedTiles;
     }
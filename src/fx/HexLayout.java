@@ -0,0 +1,138 @@
+package fx;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+
+/**
+ * Maps grid coordinates to pixel coordinates for the current zoom, pan offset and orientation.
+ * Every change bumps an epoch, so hexagons can tell when their cached geometry is stale
+ * and recompute it the next time it is asked for.
+ */
+public class HexLayout {
+
+    private int hexSize = 40;
+    private double originX = 0, originY = 0;
+    private boolean isFlat = true;
+    private int epoch = 0;
+
+    /**
+     * Adopts new view parameters, bumping the epoch if anything changed.
+     * @param hexSize Distance from center to vertices in pixels
+     * @param originX Pixel x of the center of tile (0, 0)
+     * @param originY Pixel y of the center of tile (0, 0)
+     * @param isFlat Whether the hexagons are flat-topped
+     */
+    public void update(int hexSize, double originX, double originY, boolean isFlat) {
+        if (this.hexSize == hexSize && this.originX == originX
+            && this.originY == originY && this.isFlat == isFlat) return;
+
+        this.hexSize = hexSize;
+        this.originX = originX;
+        this.originY = originY;
+        this.isFlat  = isFlat;
+        epoch++;
+    }
+
+    /**
+     * Calculates the pixel center of a tile (hex to pixel).
+     * Converts the offset coordinates to axial ones first, so this is the exact inverse of toGrid.
+     * Flat grids shift every odd column down, pointy grids every odd row to the right.
+     * @param row Grid row (x of the grid point)
+     * @param col Grid column (y of the grid point)
+     * @return The center in pixel coordinates
+     */
+    public Point2D center(int row, int col) {
+        if (isFlat) {
+            int q = col, r = row - (col >> 1);
+            return new Point2D.Double(
+                originX + hexSize * 1.5 * q,
+                originY + hexSize * Math.sqrt(3) * (r + q / 2.0));
+        } else {
+            int q = col - (row >> 1), r = row;
+            return new Point2D.Double(
+                originX + hexSize * Math.sqrt(3) * (q + r / 2.0),
+                originY + hexSize * 1.5 * r);
+        }
+    }
+
+    /**
+     * Converts a pixel to fractional axial coordinates.
+     * @param x Pixel x
+     * @param y Pixel y
+     * @return Axial coordinates (x = q, y = r), not rounded to a tile
+     */
+    public Point2D toAxial(double x, double y) {
+        double px = (x - originX) / hexSize;
+        double py = (y - originY) / hexSize;
+        if (isFlat) {
+            return new Point2D.Double(2.0 / 3 * px, -1.0 / 3 * px + Math.sqrt(3) / 3 * py);
+        } else {
+            return new Point2D.Double(Math.sqrt(3) / 3 * px - 1.0 / 3 * py, 2.0 / 3 * py);
+        }
+    }
+
+    /**
+     * Finds the tile containing a pixel (pixel to hex) in constant time.
+     * The pixel is converted to fractional axial coordinates and rounded in cube space,
+     * which always lands on the hexagon whose outline contains the pixel.
+     * @param x Pixel x
+     * @param y Pixel y
+     * @return Grid coordinates (x = row, y = column)
+     */
+    public Point toGrid(double x, double y) {
+        Point2D axial = toAxial(x, y);
+        double q = axial.getX(), r = axial.getY();
+
+        // Round every cube axis, then recompute the one with the largest error so they sum to 0
+        double s = -q - r;
+        long rq = Math.round(q), rr = Math.round(r), rs = Math.round(s);
+        double dq = Math.abs(rq - q), dr = Math.abs(rr - r), ds = Math.abs(rs - s);
+        if (dq > dr && dq > ds) rq = -rr - rs;
+        else if (dr > ds)       rr = -rq - rs;
+
+        int aq = (int) rq, ar = (int) rr;
+        return isFlat
+            ? new Point(ar + (aq >> 1), aq)
+            : new Point(ar, aq + (ar >> 1));
+    }
+
+    /**
+     * Finds the block of tiles covering a pixel rectangle.
+     * Offset coordinates are aligned with the pixel axes, so the tiles under the four
+     * corners span the block; one extra tile per side covers hexagons that only reach
+     * into the rectangle with an edge.
+     * @param x Left pixel
+     * @param y Top pixel
+     * @param width Width in pixels
+     * @param height Height in pixels
+     * @return The block (x = first row, y = first column, width = rows, height = columns)
+     */
+    public Rectangle gridBlock(double x, double y, double width, double height) {
+        int firstRow = Integer.MAX_VALUE, lastRow = Integer.MIN_VALUE;
+        int firstCol = Integer.MAX_VALUE, lastCol = Integer.MIN_VALUE;
+        for (int corner = 0; corner < 4; corner++) {
+            Point p = toGrid(x + (corner & 1) * width, y + (corner >> 1) * height);
+            firstRow = Math.min(firstRow, p.x);
+            lastRow  = Math.max(lastRow,  p.x);
+            firstCol = Math.min(firstCol, p.y);
+            lastCol  = Math.max(lastCol,  p.y);
+        }
+        return new Rectangle(firstRow - 1, firstCol - 1, lastRow - firstRow + 3, lastCol - firstCol + 3);
+    }
+
+    public int getHexSize() {
+        return hexSize;
+    }
+
+    public boolean isFlat() {
+        return isFlat;
+    }
+
+    /**
+     * @return Counter that changes whenever the layout changes
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+}
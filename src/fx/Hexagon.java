@@ -7,6 +7,8 @@ import java.awt.geom.Point2D;
 /**
  * Represents a hexagonal tile in a grid system with both pixel and grid coordinates.
  * Handles geometric properties and contains-check functionality for hexagon shapes.
+ * Tiles of the world grid are bound to a layout and derive their pixel geometry from it
+ * on demand, so they can live for the whole session while the view pans and zooms.
  */
 public class Hexagon {
 
@@ -17,6 +19,11 @@ public class Hexagon {
     // Grid coordinates (column, row)
     private final Point gridCoords;
 
+    // Layout the geometry is derived from (null for hexagons with fixed geometry)
+    private final HexLayout layout;
+    // Layout epoch the cached geometry was computed for
+    private int layoutEpoch = -1;
+
     /**
      * Constructs a hexagonal tile with specified parameters.
      * @param center The center point in pixel coordinates
@@ -26,13 +33,36 @@ public class Hexagon {
      */
     public Hexagon(Point2D center, int hexSize, Point gridCoords, boolean isFlat) {
         this.center = center;
-        this.shape = new Path2D.Double();
+        this.shape = buildShape(center, hexSize, isFlat);
+        this.gridCoords = gridCoords;
+        this.layout = null;
+    }
+
+    /**
+     * Constructs a tile whose geometry follows a layout.
+     * @param gridCoords The grid position coordinates
+     * @param layout Layout the pixel geometry is derived from
+     */
+    public Hexagon(Point gridCoords, HexLayout layout) {
+        this.gridCoords = gridCoords;
+        this.layout = layout;
+    }
+
+    /**
+     * Builds the outline of a regular hexagon.
+     * @param center The center point in pixel coordinates
+     * @param hexSize The radius/distance from center to vertices
+     * @param isFlat Whether the hexagon is flat-topped (true) or pointy-topped (false)
+     * @return The closed outline
+     */
+    private static Path2D buildShape(Point2D center, int hexSize, boolean isFlat) {
+        Path2D shape = new Path2D.Double();
 
         // Draw regular hexagon by calculating 6 vertices
         for (int i = 0; i < 6; i++) {
             // Calculate angle for each vertex
             double angle = 2 * Math.PI / 6 * i;
-            
+
             // Apply rotation offset for pointy-topped hexagons
             double x = center.getX() + hexSize * Math.cos(angle + (isFlat ? 0 : Math.PI / 6));
             double y = center.getY() + hexSize * Math.sin(angle + (isFlat ? 0 : Math.PI / 6));
@@ -45,7 +75,18 @@ public class Hexagon {
             }
         }
         shape.closePath();
-        this.gridCoords = gridCoords;
+        return shape;
+    }
+
+    /**
+     * Recomputes the center if the layout changed since it was last calculated.
+     * The shape is dropped and rebuilt lazily, since most tiles are never drawn.
+     */
+    private void refresh() {
+        if (layout == null || layoutEpoch == layout.getEpoch()) return;
+        layoutEpoch = layout.getEpoch();
+        center = layout.center(gridCoords.x, gridCoords.y);
+        shape  = null;
     }
 
     /**
@@ -65,15 +106,18 @@ public class Hexagon {
      * @return true if the point is inside the hexagon's shape
      */
     public boolean contains(Point2D p) {
-        return shape.contains(p);
+        return getShape().contains(p);
     }
 
     // Standard accessor methods with no modifications
     public Path2D getShape() {
+        refresh();
+        if (shape == null) shape = buildShape(center, layout.getHexSize(), layout.isFlat());
         return shape;
     }
 
     public Point2D getCenter() {
+        refresh();
         return center;
     }
 
@@ -91,6 +135,6 @@ public class Hexagon {
      */
     public void setCenter(Point2D center) {
         this.center = center;
-        shape.moveTo(center.getX(), center.getY());
+        getShape().moveTo(center.getX(), center.getY());
     }
-}
\ No newline at end of file
+}
@@ -35,13 +35,19 @@ public class CommandCompleter {
         commandArguments.put("character", Arrays.asList("delete", "size", "maxhealth", "armorclass", "speed", "initiative", "icon"));
         commandArguments.put("wall", Arrays.asList("delete"));
         commandArguments.put("entity", Arrays.asList("delete"));
-        commandArguments.put("help", Arrays.asList("quit", "background", "debug", "character", "wall", "entity", "help", "roll", "grid", "gamemaster", "init", "clear", "theme"));
+        commandArguments.put("help", Arrays.asList("quit", "background", "debug", "character", "wall", "entity", "help", "roll", "grid", "gamemaster", "init", "clear", "theme", "terrain", "fov", "fog", "route", "squad", "flow"));
         commandArguments.put("roll", null);
         commandArguments.put("grid", null);
         commandArguments.put("gamemaster", null);
         commandArguments.put("init", Arrays.asList("add", "remove", "clear", "show", "next"));
         commandArguments.put("clear", null);
         commandArguments.put("theme", Arrays.asList("purple", "red", "green", "yellow", "light", "dark", "black"));
+        commandArguments.put("terrain", Arrays.asList("clear"));
+        commandArguments.put("fov", Arrays.asList("off"));
+        commandArguments.put("fog", Arrays.asList("on", "add", "remove", "reset", "off", "clear"));
+        commandArguments.put("route", Arrays.asList("optimize", "clear"));
+        commandArguments.put("squad", Arrays.asList("clear"));
+        commandArguments.put("flow", Arrays.asList("move", "terrain", "off"));
     }
 
     /**
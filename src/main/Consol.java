@@ -1,6 +1,12 @@
 package main;
 
+import calc.AStar;
 import calc.Dice;
+import calc.FieldOfView;
+import calc.FlowField;
+import calc.RoutePlanner;
+import calc.SquadPlanner;
+import calc.TerrainLayer;
 import entities.Character;
 import entities.Entity;
 import fx.Hexagon;
@@ -94,6 +100,12 @@ public final class Consol extends JTextField {
                 case "init",       ":i"  -> initiative(args);
                 case "clear",      ":cl" -> clear();
                 case "theme",      ":t"  -> theme(args);
+                case "terrain",    ":tr" -> terrain(args);
+                case "fov",        ":fv" -> fieldOfView(args);
+                case "fog",        ":f"  -> fog(args);
+                case "route",      ":ro" -> route(args);
+                case "squad",      ":sq" -> squad(args);
+                case "flow",       ":fl" -> flow(args);
                 default -> gh.consol.addLogMessage("Invalid input: \"" + input + "\" - Try help for a list of commands");
             }
         }
@@ -113,6 +125,242 @@ public final class Consol extends JTextField {
         }
     }
 
+    /**
+     * Sets the movement cost of the selected tiles.
+     * @param args Command arguments
+     */
+    private void terrain(String[] args) {
+        if (args.length < 2) {
+            gh.consol.addLogMessage("Usage: terrain <cost 1-" + TerrainLayer.MAX_COST + "> or terrain clear");
+            return;
+        }
+        if (args[1].equals("clear") || args[1].equals("c")) {
+            if (gh.selectedTiles.isEmpty()) gh.terrain.clear();
+            for (Hexagon h : gh.selectedTiles) gh.terrain.setCost(h, TerrainLayer.DEFAULT_COST);
+        } else {
+            try {
+                int cost = Integer.parseInt(args[1]);
+                for (Hexagon h : gh.selectedTiles) gh.terrain.setCost(h, cost);
+            } catch (NumberFormatException e) {
+                gh.consol.addLogMessage("Invalid terrain cost: " + args[1]);
+            }
+        }
+        gh.repaint();
+    }
+
+    /**
+     * Shows or hides what the selected character or tile can see.
+     * @param args Command arguments
+     */
+    private void fieldOfView(String[] args) {
+        if (args.length > 1 && (args[1].equals("off") || args[1].equals("o"))) {
+            gh.viewOrigin = null;
+            gh.repaint();
+            return;
+        }
+        int radius = 24;
+        if (args.length > 1) {
+            try {
+                radius = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                gh.consol.addLogMessage("Usage: fov <radius 1-" + FieldOfView.MAX_RADIUS + "> or fov off");
+                return;
+            }
+        }
+        Hexagon origin = gh.tileUnderMouse;
+        if (!gh.selectedEntityTiles.isEmpty()) {
+            Entity e = gh.selectEntity(gh.selectedEntityTiles.getFirst());
+            origin = e != null ? e.getTile() : gh.selectedEntityTiles.getFirst();
+        } else if (!gh.selectedTiles.isEmpty()) {
+            origin = gh.selectedTiles.getFirst();
+        }
+        if (origin == null) {
+            gh.consol.addLogMessage("Select a character or tile to show its field of view");
+            return;
+        }
+        gh.viewOrigin = origin;
+        gh.viewRadius = radius;
+        gh.repaint();
+    }
+
+    /**
+     * Handles fog of war commands.
+     * Without arguments the fog is switched on and the selected characters become viewers,
+     * or all characters if none are selected and there are no viewers yet.
+     * @param args Command arguments
+     */
+    private void fog(String[] args) {
+        String arg = args.length > 1 ? args[1] : "on";
+        switch (arg) {
+            case "on" -> {
+                addViewers(!gh.fog.hasViewers() && gh.selectedEntityTiles.isEmpty());
+                gh.fog.setEnabled(true);
+            }
+            case "add", "a" -> addViewers(false);
+            case "remove", "r" -> {
+                for (Hexagon h : gh.selectedEntityTiles) gh.fog.removeViewer(gh.selectEntity(h));
+            }
+            case "reset" -> gh.fog.reset();
+            case "off", "o" -> gh.fog.setEnabled(false);
+            case "clear", "c" -> gh.fog.clear();
+            default -> gh.consol.addLogMessage("Usage: fog [on | add | remove | reset | off | clear]");
+        }
+        gh.repaint();
+    }
+
+    /**
+     * Adds characters as fog of war viewers.
+     * @param all If true all characters are added, otherwise only the selected ones
+     */
+    private void addViewers(boolean all) {
+        if (all) {
+            for (Entity e : gh.entities) {
+                if (e instanceof Character) gh.fog.addViewer(e, gh.occupancy);
+            }
+        } else {
+            for (Hexagon h : gh.selectedEntityTiles) {
+                if (gh.selectEntity(h) instanceof Character c) gh.fog.addViewer(c, gh.occupancy);
+            }
+        }
+    }
+
+    /**
+     * Plans a route from the selected character through the selected tiles.
+     * The tiles are visited in the order they were selected, or in the cheapest order
+     * with "route optimize".
+     * @param args Command arguments
+     */
+    private void route(String[] args) {
+        String arg = args.length > 1 ? args[1] : "";
+        if (arg.equals("clear") || arg.equals("c")) {
+            gh.path = new ArrayList<>();
+            gh.repaint();
+            return;
+        }
+        Hexagon start;
+        List<Hexagon> waypoints = new ArrayList<>();
+        if (!gh.selectedEntityTiles.isEmpty()) {
+            Entity e = gh.selectEntity(gh.selectedEntityTiles.getFirst());
+            start = e != null ? e.getTile() : gh.selectedEntityTiles.getFirst();
+            for (Hexagon h : gh.selectedTiles) waypoints.add(h);
+        } else {
+            // Without a character the first selected tile is the start
+            start = gh.selectedTiles.isEmpty() ? null : gh.selectedTiles.getFirst();
+            for (int i = 1; i < gh.selectedTiles.size(); i++) waypoints.add(gh.selectedTiles.get(i));
+        }
+        if (start == null || waypoints.isEmpty()) {
+            gh.consol.addLogMessage("Select a start and the tiles to visit, then: route [optimize | clear]");
+            return;
+        }
+
+        RoutePlanner.Route route = AStar.route(start, waypoints, arg.equals("optimize") || arg.equals("o"), gh);
+        if (route == null) {
+            gh.consol.addLogMessage("No route through all selected tiles");
+            return;
+        }
+        gh.path = route.getPath();
+        gh.consol.addLogMessage("Route through " + waypoints.size() + " tiles: " + route.getCost() * 5 + "ft");
+        gh.repaint();
+    }
+
+    /**
+     * Moves all selected characters together to the first selected tile, or the tile under
+     * the mouse, keeping their formation. An optional argument sets the time budget in ms.
+     * @param args Command arguments
+     */
+    private void squad(String[] args) {
+        if (args.length > 1 && (args[1].equals("clear") || args[1].equals("c"))) {
+            gh.squadPaths = new ArrayList<>();
+            gh.repaint();
+            return;
+        }
+        int budget = SquadPlanner.BUDGET_MILLIS;
+        if (args.length > 1) {
+            try {
+                budget = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                gh.consol.addLogMessage("Usage: squad [budget in ms | clear]");
+                return;
+            }
+            int clamped = Math.max(1, Math.min(budget, SquadPlanner.MAX_BUDGET_MILLIS));
+            if (clamped != budget)
+                gh.consol.addLogMessage("Budget must be between 1 and " + SquadPlanner.MAX_BUDGET_MILLIS + " ms, using " + clamped + " ms");
+            budget = clamped;
+        }
+        ArrayList<Character> squad = new ArrayList<>();
+        for (Hexagon h : gh.selectedEntityTiles) {
+            if (gh.selectEntity(h) instanceof Character c && !squad.contains(c)) squad.add(c);
+        }
+        Hexagon target = gh.selectedTiles.isEmpty() ? gh.tileUnderMouse : gh.selectedTiles.getFirst();
+        if (squad.isEmpty() || target == null) {
+            gh.consol.addLogMessage("Select the characters and a target tile, then: squad [budget in ms | clear]");
+            return;
+        }
+
+        SquadPlanner.Plan plan = gh.gm.moveSquad(target, squad, budget);
+        if (plan == null) return;
+
+        // Keep the squad selected at its new position
+        gh.selectedEntityTiles.clear();
+        gh.selectedTiles.clear();
+        gh.entityRangeTiles.clear();
+        gh.entityRange = null;
+        for (Character c : squad) gh.addSelectedEntityTile(c.getTile());
+        gh.consol.addLogMessage("Squad of " + squad.size() + " moved" + (plan.isComplete() ? "" : ", not everyone reached the formation in time"));
+        gh.repaint();
+    }
+
+    /**
+     * Shows the flow field towards the first selected tile, or the tile under the mouse,
+     * or moves the selected characters along it with "flow move". "flow terrain" makes
+     * the field avoid expensive terrain instead of taking the fewest steps.
+     * @param args Command arguments
+     */
+    private void flow(String[] args) {
+        boolean move = false, useTerrain = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "off", "o" -> {
+                    gh.flowField = null;
+                    gh.repaint();
+                    return;
+                }
+                case "move", "m"    -> move = true;
+                case "terrain", "t" -> useTerrain = true;
+                default -> {
+                    gh.consol.addLogMessage("Usage: flow [move] [terrain] or flow off");
+                    return;
+                }
+            }
+        }
+        ArrayList<Character> tokens = new ArrayList<>();
+        for (Hexagon h : gh.selectedEntityTiles) {
+            if (gh.selectEntity(h) instanceof Character c && !tokens.contains(c)) tokens.add(c);
+        }
+        Hexagon target = gh.selectedTiles.isEmpty() ? gh.tileUnderMouse : gh.selectedTiles.getFirst();
+        if (target == null) {
+            gh.consol.addLogMessage("Select a target tile, then: flow [move] [terrain]");
+            return;
+        }
+
+        if (!move) {
+            int size = tokens.isEmpty() ? Character.NORMAL : tokens.getFirst().getSize();
+            FlowField field = AStar.flowField(target, size, useTerrain, gh);
+            gh.flowField = field;
+            gh.consol.addLogMessage(field.getCount() + " tiles lead to the target");
+            gh.repaint();
+            return;
+        }
+
+        int moved = gh.gm.advance(target, tokens, useTerrain);
+        gh.selectedEntityTiles.clear();
+        gh.entityRangeTiles.clear();
+        gh.entityRange = null;
+        for (Character c : tokens) gh.addSelectedEntityTile(c.getTile());
+        gh.consol.addLogMessage(moved + " of " + tokens.size() + " characters advanced");
+        gh.repaint();
+    }
+
     /**
      * Clears command history and logs.
      */
@@ -181,7 +429,10 @@ public final class Consol extends JTextField {
         if (!gh.selectedEntityTiles.isEmpty()) {
             for (Hexagon h : gh.selectedEntityTiles) {
                 Character c = (Character) gh.selectEntity(h);
-                if (hasValue[0]) c.setSize(size);
+                if (hasValue[0]) {
+                    c.setSize(size);
+                    gh.occupancy.update(c);
+                }
                 if (hasValue[1]) c.setMaxHealth(maxHealth);
                 if (hasValue[2]) c.setAC(AC);
                 if (hasValue[3]) c.setSpeed(speed);
@@ -0,0 +1,121 @@
+package main;
+
+import calc.FogOfWar;
+import calc.GridTopology;
+import calc.WorldGrid;
+import fx.HexLayout;
+import fx.Hexagon;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+
+/**
+ * Cached mask of the fog of war.
+ * Like the grid layer, the mask covers the panel plus a margin and is only blitted while
+ * the view stays the same. It uses a three colour palette (clear, explored, unexplored),
+ * so it takes one byte per pixel. Tiles the fog reports as changed are repainted into the
+ * existing mask; the whole mask is only rendered again when the view changes or the fog
+ * reports too many changes at once.
+ */
+public class FogLayer {
+
+    // Extra pixels rendered around the panel, the grid can be panned this far before re-rendering
+    private static final int MARGIN = 256;
+
+    // Palette entries
+    private static final Color CLEAR      = new Color(0, 0, 0, 0);
+    private static final Color EXPLORED   = new Color(0, 0, 0, 120);
+    private static final Color UNEXPLORED = new Color(0, 0, 0, 230);
+    private static final IndexColorModel PALETTE = new IndexColorModel(2, 3,
+        new byte[] {0, 0, 0}, new byte[] {0, 0, 0}, new byte[] {0, 0, 0},
+        new byte[] {0, (byte) EXPLORED.getAlpha(), (byte) UNEXPLORED.getAlpha()});
+
+    private BufferedImage image;
+
+    // Parameters the image was rendered with
+    private int hexSize, width, height;
+    private boolean isFlat;
+    private int offsetX, offsetY;
+
+    /**
+     * Draws the fog, bringing the cached mask up to date first.
+     * @param g2d Target graphics of the grid panel
+     * @param world The world grid, its layout must match the current view
+     * @param fog The fog of war, its changes are consumed
+     * @param offset Current grid offset
+     * @param width Panel width
+     * @param height Panel height
+     */
+    public void paint(Graphics2D g2d, WorldGrid world, FogOfWar fog, Point offset, int width, int height) {
+        HexLayout layout = world.getLayout();
+        if (image == null || fog.hasChangedAll()
+            || hexSize != layout.getHexSize() || isFlat != layout.isFlat()
+            || this.width != width || this.height != height
+            || Math.abs(offset.x - offsetX) > MARGIN || Math.abs(offset.y - offsetY) > MARGIN) {
+            render(world, fog, offset, width, height);
+        } else if (fog.getChangeCount() > 0) {
+            update(world, fog, offset);
+        }
+        fog.clearChanges();
+        g2d.drawImage(image, offset.x - offsetX - MARGIN, offset.y - offsetY - MARGIN, null);
+    }
+
+    private void render(WorldGrid world, FogOfWar fog, Point offset, int width, int height) {
+        HexLayout layout = world.getLayout();
+        this.hexSize = layout.getHexSize();
+        this.isFlat  = layout.isFlat();
+        this.width   = width;
+        this.height  = height;
+        this.offsetX = offset.x;
+        this.offsetY = offset.y;
+
+        int imageWidth  = Math.max(1, width  + 2 * MARGIN);
+        int imageHeight = Math.max(1, height + 2 * MARGIN);
+        if (image == null || image.getWidth() != imageWidth || image.getHeight() != imageHeight) {
+            image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_BYTE_INDEXED, PALETTE);
+        }
+
+        Graphics2D g = graphics(0, 0);
+        g.setColor(UNEXPLORED);
+        g.fillRect(-MARGIN, -MARGIN, imageWidth, imageHeight);
+        GridTopology topology = world.getTopology();
+        for (Hexagon hex : world.tilesIn(layout.gridBlock(-MARGIN, -MARGIN, imageWidth, imageHeight))) {
+            int id = topology.id(hex);
+            if (fog.isExplored(id)) fill(g, hex, fog, id);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Repaints only the tiles the fog reported as changed.
+     */
+    private void update(WorldGrid world, FogOfWar fog, Point offset) {
+        // Tiles are at their current positions, the image was rendered for an older offset
+        Graphics2D g = graphics(offset.x - offsetX, offset.y - offsetY);
+        int[] changes = fog.getChanges();
+        for (int i = 0; i < fog.getChangeCount(); i++) {
+            Hexagon hex = world.tile(changes[i]);
+            // Tiles outside the image are clipped
+            if (hex != null) fill(g, hex, fog, changes[i]);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Creates graphics in panel coordinates for the offset the image was rendered with.
+     */
+    private Graphics2D graphics(int shiftX, int shiftY) {
+        Graphics2D g = image.createGraphics();
+        // Palette colours are written as they are, without blending or smoothing
+        g.setComposite(AlphaComposite.Src);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        g.setRenderingHint(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_DISABLE);
+        g.translate(MARGIN - shiftX, MARGIN - shiftY);
+        return g;
+    }
+
+    private static void fill(Graphics2D g, Hexagon hex, FogOfWar fog, int id) {
+        g.setColor(fog.isVisible(id) ? CLEAR : fog.isExplored(id) ? EXPLORED : UNEXPLORED);
+        g.fill(hex.getShape());
+    }
+}
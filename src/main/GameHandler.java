@@ -1,11 +1,15 @@
 package main;
 
 import calc.AStar;
+import calc.Calc;
+import calc.FlowField;
+import calc.SquadPlanner;
 import entities.Entity;
 import fx.*;
 import java.awt.Color;
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 
 /**
@@ -93,10 +97,100 @@ public class GameHandler implements Runnable {
     public void moveCharacter(Hexagon h, entities.Character c) {
         if (h == null || c == null) return;
         
-        // Calculate path using A*
-        gh.path = AStar.run(c.getTile(), h, gh, false);
+        // Reuse the selection's distance field if it covers the move and is still current, GM moves may leave the range
+        if (gh.entityRange != null && gh.entityRange.startsAt(c.getTile()) && gh.entityRange.contains(h))
+            gh.path = gh.entityRange.pathTo(h);
+        else
+            gh.path = AStar.run(c.getTile(), h, gh, false);
         // Update character's position
         c.setTile(h);
+        gh.occupancy.update(c);
+        // Only this token's view changes
+        gh.fog.update(c, gh.occupancy);
+    }
+
+    /**
+     * Moves several characters at once, keeping their formation around a target hexagon.
+     * The paths are planned together, so no two characters ever stand on the same tile.
+     * @param target Target hexagon of the first character
+     * @param squad Characters to move
+     * @param budgetMillis Time the planning may take
+     * @return The plan, or null if there is nothing to move
+     */
+    public SquadPlanner.Plan moveSquad(Hexagon target, ArrayList<entities.Character> squad, long budgetMillis) {
+        if (target == null || squad == null || squad.isEmpty()) return null;
+        for (entities.Character c : squad) {
+            if (c.getTile() == null) return null;
+        }
+
+        SquadPlanner.Plan plan = AStar.squad(squad, SquadPlanner.formation(squad, target, gh), budgetMillis, gh);
+        if (plan == null) return null;
+
+        // Lift everyone first, a character may end where another one started
+        for (entities.Character c : squad) gh.occupancy.remove(c);
+        for (int i = 0; i < squad.size(); i++) {
+            squad.get(i).setTile(plan.getEnds().get(i));
+            gh.occupancy.add(squad.get(i));
+        }
+        for (entities.Character c : squad) gh.fog.update(c, gh.occupancy);
+
+        gh.path = new ArrayList<>();
+        gh.squadPaths = new ArrayList<>(plan.getPaths());
+        return plan;
+    }
+
+    /**
+     * Moves characters towards a target along flow fields, each as far as its speed allows.
+     * One field is built per size category and shared by all characters of that size.
+     * Characters closest to the target go first, so the ones behind can take the room they
+     * leave; a character stops in front of any tile it doesn't fit on.
+     * @param target Target hexagon
+     * @param tokens Characters to move
+     * @param useTerrain If true the fields avoid expensive terrain, otherwise they take the fewest steps
+     * @return Number of characters that moved
+     */
+    public int advance(Hexagon target, ArrayList<entities.Character> tokens, boolean useTerrain) {
+        if (target == null || tokens == null) return 0;
+
+        HashMap<Integer, FlowField> fields = new HashMap<>();
+        ArrayList<entities.Character> order = new ArrayList<>();
+        for (entities.Character c : tokens) {
+            if (c.getTile() != null) order.add(c);
+        }
+        Point t = target.getGridPoint();
+        order.sort(Comparator.comparingInt(c -> Calc.hexDistance(
+            c.getTile().getGridPoint().x, c.getTile().getGridPoint().y, t.x, t.y)));
+
+        int moved = 0;
+        gh.path = new ArrayList<>();
+        gh.squadPaths = new ArrayList<>();
+        for (entities.Character c : order) {
+            FlowField field = fields.computeIfAbsent(c.getSize(), size -> AStar.flowField(target, size, useTerrain, gh));
+            ArrayList<Hexagon> path = new ArrayList<>();
+            path.add(c.getTile());
+
+            int budget = c.getSpeed();
+            for (Hexagon next = field.next(c.getTile()); next != null; next = field.next(next)) {
+                Point p = next.getGridPoint();
+                if (!gh.occupancy.fits(p.x, p.y, c.getSize(), c)) break;
+                int cost = c.getSize() <= entities.Character.NORMAL
+                         ? gh.terrain.cost(next)
+                         : gh.terrain.footprintCost(p.x, p.y, c.getSize(), GraphicsHandler.isFlat);
+                if (cost > budget) break;
+                budget -= cost;
+                path.add(next);
+            }
+            if (path.size() < 2) continue;
+
+            c.setTile(path.getLast());
+            gh.occupancy.update(c);
+            gh.fog.update(c, gh.occupancy);
+            gh.squadPaths.add(path);
+            moved++;
+        }
+        // The field behind the move is shown in debug mode
+        if (gh.debugMode && !order.isEmpty()) gh.flowField = fields.get(order.getFirst().getSize());
+        return moved;
     }
 
     /**
@@ -8,11 +8,13 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.io.File;
 import java.util.ArrayList;
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 import tools.Area;
+import tools.AttackResult;
 import tools.Cone;
 import tools.Line;
 import tools.Measure;
@@ -55,20 +57,50 @@ public final class GraphicsHandler extends JFrame {
     protected Point dragStart = null;
     Point gridOffset = new Point(0, 0);
 
-    // Data structure to store hexagon grid using two-key mapping (row, column)
-    public TwoKeyMap<Integer, Integer, Hexagon> hexlist = new TwoKeyMap<>();
+    // Persistent tiles of the whole map, their geometry follows the layout
+    public final WorldGrid world = new WorldGrid(new HexLayout(), isFlat);
+    // Row/column range currently on screen (x = first row, y = first column, width = rows, height = columns)
+    protected Rectangle gridBounds = new Rectangle();
+    // Cached raster of the grid lines
+    protected final GridLayer gridLayer = new GridLayer();
+    // Visible free tiles the previewed character can't walk into, kept until the start, view or occupancy changes
+    private final ArrayList<Hexagon> unreachableTiles = new ArrayList<>();
+    private final Rectangle unreachableBounds = new Rectangle();
+    private Hexagon unreachableStart;
+    private GridTopology unreachableTopology;
+    private int unreachableEpoch;
 
     // Collections for managing various game elements
     public ArrayList<Theme>   themes              = new ArrayList<>();
     public ArrayList<Measure> measure             = new ArrayList<>();
     public ArrayList<Marker>  markers             = new ArrayList<>();
     public ArrayList<Entity>  entities            = new ArrayList<>();
-    public ArrayList<Hexagon> selectedTiles       = new ArrayList<>();
-    public ArrayList<Hexagon> selectedEntityTiles = new ArrayList<>();
-    public ArrayList<Hexagon> entityRangeTiles    = new ArrayList<>();
-    public ArrayList<Hexagon> entityPreviewTiles  = new ArrayList<>();
-    public ArrayList<Hexagon> attackTiles         = new ArrayList<>();
+    // Tile -> entity lookup, kept in sync with entities
+    public final OccupancyIndex occupancy         = new OccupancyIndex();
+    // Movement cost per tile
+    public final TerrainLayer terrain             = new TerrainLayer();
+    // Highlight layers, keyed by world tile so membership checks are O(1)
+    public final TileSet      selectedTiles       = new TileSet(world);
+    public final TileSet      selectedEntityTiles = new TileSet(world);
+    public final TileSet      entityRangeTiles    = new TileSet(world);
+    // Distances from the selected character, behind entityRangeTiles, the preview path and the move
+    public DistanceField      entityRange;
+    public final TileSet      entityPreviewTiles  = new TileSet(world);
+    // Latest evaluation of the active attack tool, only read while painting
+    public AttackResult       attack              = AttackResult.NONE;
+    // Shadowcasting over walls, and the origin and radius of the field of view on display
+    public final FieldOfView  fieldOfView         = new FieldOfView(world, 64);
+    public Hexagon            viewOrigin;
+    public int                viewRadius;
+    // Explored and visible tiles of the viewers, drawn from a cached mask
+    public final FogOfWar     fog                 = new FogOfWar(world, fieldOfView);
+    protected final FogLayer  fogLayer            = new FogLayer();
+    // Ordered route, drawn as connected segments
     public ArrayList<Hexagon> path                = new ArrayList<>();
+    // Next step towards a target from every tile, drawn as arrows while set
+    public FlowField          flowField;
+    // Paths of the last squad move, one per character
+    public ArrayList<ArrayList<Hexagon>> squadPaths = new ArrayList<>();
 
     // Current state variables
     public Hexagon tileUnderMouse;
@@ -204,6 +236,7 @@ public final class GraphicsHandler extends JFrame {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
+                syncLayout();
 
                 Graphics2D g2d = (Graphics2D) g;
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -219,13 +252,7 @@ public final class GraphicsHandler extends JFrame {
                     }
                     e.debugUpdate();
 
-                    // Update entity tile reference from current hexagon list
                     Hexagon h = e.getTile();
-                    h = hexlist.get(h.getGridPoint().x, h.getGridPoint().y);
-
-                    if(h != null) {
-                        e.setTile(h);
-                    } else continue;
 
                     // Special rendering logic for Character entities
                     if (e instanceof Character c){
@@ -280,76 +307,21 @@ public final class GraphicsHandler extends JFrame {
                 g2d.setComposite(AlphaComposite.SrcOver.derive(0.5f));
                 g2d.setStroke(new BasicStroke(thickness));
 
-                hexlist.clear();
-                // Calculate hexagon geometry based on orientation (flat vs pointy top)
-                double hexWidth  = hexSize * Math.sqrt(3);
-                double hexHeight = hexSize * 2;
-                double ColDistance = (isFlat ? hexWidth  : hexHeight);
-                double RowDistance = (isFlat ? hexHeight : hexWidth);
-
-                // Calculate visible grid range to optimize rendering
-                int firstVisibleCol = -2 + (int) Math.floor((           - gridOffset.x - ColDistance) * 2 / Math.sqrt(3) / ColDistance);
-                int lastVisibleCol  =  2 + (int) Math.ceil((getWidth()  - gridOffset.x - ColDistance) * 2 / Math.sqrt(3) / ColDistance);
-                int firstVisibleRow = -2 + (int) Math.floor((           - gridOffset.y - RowDistance) * 1.16 / RowDistance);
-                int lastVisibleRow  =  2 + (int) Math.ceil((getHeight() - gridOffset.y - RowDistance) * 1.16 / RowDistance);
-                
-                // Generate and draw hexagon grid within visible range
-                for (    int row = firstVisibleRow; row <= lastVisibleRow; row++) {
-                    for (int col = firstVisibleCol; col <= lastVisibleCol; col++) {
-                        double centerX;
-                        double centerY;
-
-                        // Calculate hexagon center position based on grid orientation
-                        if(isFlat){
-                            centerX = gridOffset.x + col * hexWidth  * Math.sqrt(3)/2;
-                            centerY = gridOffset.y + row * hexHeight * Math.sqrt(3)/2;
-                            // Offset every other row for proper hexagon tessellation
-                            if (col % 2 != 0) {
-                                centerY += hexWidth/2;
-                            }
-                        } else {
-                            centerX = gridOffset.x + col * hexHeight * Math.sqrt(3)/2;
-                            centerY = gridOffset.y + row * hexWidth  * Math.sqrt(3)/2;
-                            // Offset every other row
-                            if (row % 2 != 0) {
-                                centerX += hexWidth/2;
-                            }
-                        }
-
-                        // Create hexagon object and add to grid
-                        Point2D p   = new Point2D.Double(centerX, centerY);
-                        Hexagon hex = new Hexagon(p, hexSize, new Point(row, col), isFlat);
-                        
-                        g2d.setColor(currentTheme.getSecondary());
-                        g2d.draw(hex.getShape());
-                        hexlist.put(row,col,hex);
-                    }
-                }
-                
-                // Update hexagon references in all tile collections after grid regeneration
-                for (Hexagon h : selectedTiles) {
-                    if (h == null) continue;
-                    selectedTiles.set(selectedTiles.indexOf(h),hexlist.get(h.getGridPoint().x, h.getGridPoint().y));
-                }
-                for (Hexagon h : selectedEntityTiles) {
-                    if (h == null) continue;
-                    selectedEntityTiles.set(selectedEntityTiles.indexOf(h),hexlist.get(h.getGridPoint().x, h.getGridPoint().y)); 
-                }
-                for (Hexagon h : entityRangeTiles) {
-                    if (h == null) continue;
-                    entityRangeTiles.set(entityRangeTiles.indexOf(h),hexlist.get(h.getGridPoint().x, h.getGridPoint().y)); 
-                }
-                for (Hexagon h : entityPreviewTiles) {
-                    if (h == null) continue;
-                    entityPreviewTiles.set(entityPreviewTiles.indexOf(h),hexlist.get(h.getGridPoint().x, h.getGridPoint().y)); 
-                }
-                for (Hexagon h : attackTiles){
-                    if (h == null) continue;
-                    attackTiles.set(attackTiles.indexOf(h),hexlist.get(h.getGridPoint().x, h.getGridPoint().y)); 
-                }
-                for (Hexagon h : path) {
-                    if (h == null) continue;
-                    path.set(path.indexOf(h), hexlist.get(h.getGridPoint().x, h.getGridPoint().y));
+                syncLayout();
+                // Remember the visible block for hit-testing and debug output
+                gridBounds.setBounds(world.getLayout().gridBlock(0, 0, getWidth(), getHeight()));
+
+                // Blit the cached grid image, it is only re-rendered when the grid looks different
+                gridLayer.paint(g2d, world, terrain, gridOffset, thickness,
+                    currentTheme.getSecondary(), getWidth(), getHeight());
+
+                // Fog of war, the game master can see through it
+                if (fog.isEnabled()) {
+                    fog.refresh(occupancy);
+                    Composite composite = g2d.getComposite();
+                    g2d.setComposite(AlphaComposite.SrcOver.derive(io.gameMaster ? 0.5f : 1f));
+                    fogLayer.paint(g2d, world, fog, gridOffset, getWidth(), getHeight());
+                    g2d.setComposite(composite);
                 }
 
                 // Highlight tile under mouse cursor
@@ -360,47 +332,67 @@ public final class GraphicsHandler extends JFrame {
                     g2d.draw(tileUnderMouse.getShape());
                 }
                 
+                // Grey out free regions the previewed character can't walk into
+                if (!entityPreviewTiles.isEmpty() && !selectedEntityTiles.isEmpty()) {
+                    g2d.setColor(new Color(128, 128, 128, 90));
+                    for (Hexagon h : getUnreachableTiles(selectedEntityTiles.getFirst())) {
+                        g2d.fill(h.getShape());
+                    }
+                }
+
+                // Shade everything outside the displayed field of view
+                if (viewOrigin != null) {
+                    TileSet visible = fieldOfView.compute(viewOrigin, viewRadius, occupancy);
+                    g2d.setColor(new Color(0, 0, 0, 110));
+                    for (Hexagon h : getVisibleTiles()) {
+                        if (!visible.contains(h)) g2d.fill(h.getShape());
+                    }
+                }
+
+                // Flow field arrows, each pointing at the next step towards the target
+                if (flowField != null && flowField.isValid()) {
+                    g2d.setColor(new Color(0x3399FF));
+                    g2d.setStroke(new BasicStroke(thickness+1));
+                    for (Hexagon h : getVisibleTiles()) {
+                        Hexagon next = flowField.next(h);
+                        if (next != null) drawArrow(g2d, h.getCenter(), next.getCenter());
+                    }
+                    Hexagon target = flowField.getTarget();
+                    if (target != null) g2d.draw(target.getShape());
+                }
+
+                // All highlight layers share the same stroke
+                g2d.setStroke(new BasicStroke(thickness+2));
+
                 // Draw selected tiles with red outline
+                g2d.setColor(Color.RED);
                 for (Hexagon h : selectedTiles) {
-                    if (h == null) continue;
-                    g2d.setStroke(new BasicStroke(thickness+2));
-                    g2d.setColor(Color.RED);
                     g2d.draw(h.getShape());
-                    
                 }
                 
                 // Draw selected entity tiles with blue outline
+                g2d.setColor(Color.BLUE);
                 for (Hexagon h : selectedEntityTiles) {
-                    if (h == null) continue;
-                    g2d.setStroke(new BasicStroke(thickness+2));
-                    g2d.setColor(Color.BLUE);
-                    try {
-                        // Draw all tiles occupied by the entity
-                        for (Hexagon tile : selectEntity(h).getOccupiedTiles()) {
-                            g2d.draw(tile.getShape());
-                        }
-                    } catch (Exception e) {
+                    Entity e = occupancy.get(h);
+                    if (e == null) continue;
+                    // Draw all tiles occupied by the entity
+                    for (Hexagon tile : e.getOccupiedTiles()) {
+                        if (tile != null) g2d.draw(tile.getShape());
                     }
                 }
                 
-                // Draw entity range tiles with green outline
+                // Draw entity range tiles with green outline, the preview is drawn on top
                 for (Hexagon h : entityRangeTiles) {
-                    if (h == null) continue;
-                    if (!entityPreviewTiles.contains(h)) {
-                        g2d.setStroke(new BasicStroke(thickness+2));
-                        g2d.setColor(Color.GREEN);
-                        g2d.draw(h.getShape());
-                    }
+                    if (entityPreviewTiles.contains(h)) continue;
+                    g2d.setColor(rangeColor(h));
+                    g2d.draw(h.getShape());
                 }
                 
                 // Draw attack tiles with magenta outline
-                for (Hexagon h : attackTiles) {
-                    if (h == null) continue;
-                    if (!entityPreviewTiles.contains(h)) {
-                        g2d.setStroke(new BasicStroke(thickness+2));
-                        g2d.setColor(Color.MAGENTA);
-                        g2d.draw(h.getShape());
-                    }
+                g2d.setColor(Color.MAGENTA);
+                for (Hexagon h : attack.getTiles()) {
+                    if (entityPreviewTiles.contains(h)) continue;
+                    g2d.draw(h.getShape());
                 }
                 
                 // Draw entity preview tiles with different colors based on validity
@@ -410,8 +402,6 @@ public final class GraphicsHandler extends JFrame {
                     g2d.setColor(new Color(0xFB5607));
                 }
                 for (Hexagon h : entityPreviewTiles) {
-                    if (h == null) continue;
-                    g2d.setStroke(new BasicStroke(thickness+2));
                     g2d.draw(h.getShape());
                 }
             }
@@ -473,23 +463,29 @@ public final class GraphicsHandler extends JFrame {
                 }
                 
                 // Debug mode: render hexagon centers and grid coordinates
-                for (Hexagon h : hexlist.values()) {
-                    if (!debugMode) break;
-
-                    g2d.setColor(Color.RED);
-                    g2d.fillOval( (int) h.getCenter().getX() - hexSize/10, (int) h.getCenter().getY() - hexSize/10, 
-                        hexSize/10, hexSize/10);
+                if (debugMode) {
+                    for (Hexagon h : getVisibleTiles()) {
+                        g2d.setColor(Color.RED);
+                        g2d.fillOval( (int) h.getCenter().getX() - hexSize/10, (int) h.getCenter().getY() - hexSize/10, 
+                            hexSize/10, hexSize/10);
                     
-                    g2d.setColor(darkMode ? DARK_SECONDARY : LIGHT_SECONDARY);
-                    g2d.setFont(new Font("Arial", Font.BOLD, hexSize/3));
+                        g2d.setColor(darkMode ? DARK_SECONDARY : LIGHT_SECONDARY);
+                        g2d.setFont(new Font("Arial", Font.BOLD, hexSize/3));
 
-                    String gridPoint = "[" + h.getGridPoint().x + "|" + h.getGridPoint().y + "]";
-                    int digits = gridPoint.length();
-                    g2d.drawString(
-                        gridPoint, 
-                        (int) h.getCenter().getX() - hexSize/3 - 2*digits, 
-                        (int) h.getCenter().getY() + hexSize/5
-                    );
+                        String gridPoint = "[" + h.getGridPoint().x + "|" + h.getGridPoint().y + "]";
+                        int digits = gridPoint.length();
+                        g2d.drawString(
+                            gridPoint, 
+                            (int) h.getCenter().getX() - hexSize/3 - 2*digits, 
+                            (int) h.getCenter().getY() + hexSize/5
+                        );
+                    }
+
+                    // Path cache statistics
+                    g2d.setColor(darkMode ? DARK_SECONDARY : LIGHT_SECONDARY);
+                    g2d.setFont(new Font("Arial", Font.BOLD, 14));
+                    PathCache cache = AStar.getPathCache();
+                    g2d.drawString("Path cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses", 10, 20);
                 }
 
                 g2d.setStroke(new BasicStroke(thickness*5));
@@ -516,7 +512,8 @@ public final class GraphicsHandler extends JFrame {
                 
                 // Render line attacks
                 if (lineAttack != null) {
-                    g2d.setColor(Color.RED);
+                    // Grey once a wall blocks the line of sight
+                    g2d.setColor(lineAttack.hasLineOfSight() ? Color.RED : Color.GRAY);
                     Line2D line = lineAttack.getLine();
                     if(line != null){ 
                         g2d.draw(line);
@@ -527,7 +524,6 @@ public final class GraphicsHandler extends JFrame {
                             (int) (line.getX1() + (line.getX2()-line.getX1())/2),
                             (int) (line.getY1() + (line.getY2()-line.getY1())/2)
                         );
-                        lineAttack.getAttackedCharacters();
                         g2d.drawString(
                             lineAttack.length() + "ft",
                             lineCenter.x, lineCenter.y
@@ -539,9 +535,7 @@ public final class GraphicsHandler extends JFrame {
                 if (areaAttack != null) {
                     g2d.setColor(Color.RED);
 
-                    Point2D origin = hexlist.get(areaAttack.getOrigin().x, areaAttack.getOrigin().y).getCenter();
-
-                    areaAttack.getAttackedCharacters();
+                    Point2D origin = world.tile(areaAttack.getOrigin().x, areaAttack.getOrigin().y).getCenter();
 
                     g2d.setStroke(new BasicStroke(thickness*2));
 
@@ -553,7 +547,7 @@ public final class GraphicsHandler extends JFrame {
                     g2d.setColor(Color.BLACK);
                     g2d.setFont(new Font("Arial", Font.BOLD, hexSize/2));
                     g2d.drawString(
-                        (int)(areaAttack.getRadiusInTiles()*5) + "ft",
+                        areaAttack.getRadiusInTiles()*5 + "ft",
                         (int)(origin.getX()),
                         (int)(origin.getY())
                     );
@@ -565,7 +559,7 @@ public final class GraphicsHandler extends JFrame {
                     if(radius > hexSize) {
                         g2d.setColor(Color.RED);
                         
-                        Point2D origin = hexlist.get(coneAttack.getOrigin().x, coneAttack.getOrigin().y).getCenter();
+                        Point2D origin = world.tile(coneAttack.getOrigin().x, coneAttack.getOrigin().y).getCenter();
                         double startAngle = coneAttack.getStartAngle();
                         double endAngle = startAngle + coneAttack.getAngle();
 
@@ -607,30 +601,20 @@ public final class GraphicsHandler extends JFrame {
                         g2d.setColor(Color.BLACK);
                         g2d.setFont(new Font("Arial", Font.BOLD, hexSize/2));
                         g2d.drawString(
-                            (int)(coneAttack.getRadiusInTiles()*5) + "ft",
+                            coneAttack.getRadiusInTiles()*5 + "ft",
                             (int)(origin.getX()),
                             (int)(origin.getY())
                         );
-                        coneAttack.getAttackedCharacters();
                     }
                 }
 
                 // Render movement paths as connected lines
-                if (path != null && !path.isEmpty()) {
-                    g2d.setColor(Color.RED);
-                    g2d.setStroke(new BasicStroke(thickness*3));
-                    for (int i = 0; i < path.size() - 1; i++) {
-                        Hexagon start = path.get(i);
-                        Hexagon end   = path.get(i + 1);
-                        if (start == null || end == null) continue;
-                        g2d.drawLine(
-                            (int) start.getCenter().getX(), 
-                            (int) start.getCenter().getY(), 
-                            (int)   end.getCenter().getX(), 
-                            (int)   end.getCenter().getY()
-                        );
-                    }
-                }
+                g2d.setStroke(new BasicStroke(thickness*3));
+                g2d.setColor(Color.RED);
+                drawPath(g2d, path);
+                // Squad paths in orange, so the single path stays recognisable
+                g2d.setColor(new Color(0xF9A801));
+                for (ArrayList<Hexagon> p : squadPaths) drawPath(g2d, p);
             }
         };
         fxPanel.setOpaque(false);
@@ -747,6 +731,51 @@ public final class GraphicsHandler extends JFrame {
         repaint();
     }
 
+    // Draw a short arrow around a tile center, pointing towards a neighbor's center
+    private void drawArrow(Graphics2D g2d, Point2D from, Point2D to) {
+        double dx = (to.getX() - from.getX()) * 0.35;
+        double dy = (to.getY() - from.getY()) * 0.35;
+        double tipX = from.getX() + dx, tipY = from.getY() + dy;
+        g2d.draw(new Line2D.Double(from.getX() - dx, from.getY() - dy, tipX, tipY));
+        // Head made of the shaft turned by 150 degrees either way, at half its length
+        for (int side = -1; side <= 1; side += 2) {
+            double angle = Math.toRadians(150 * side);
+            double hx = (dx * Math.cos(angle) - dy * Math.sin(angle)) * 0.5;
+            double hy = (dx * Math.sin(angle) + dy * Math.cos(angle)) * 0.5;
+            g2d.draw(new Line2D.Double(tipX, tipY, tipX + hx, tipY + hy));
+        }
+    }
+
+    // Draw a path as lines between the centers of consecutive tiles
+    private void drawPath(Graphics2D g2d, ArrayList<Hexagon> path) {
+        if (path == null) return;
+        for (int i = 0; i < path.size() - 1; i++) {
+            Hexagon start = path.get(i);
+            Hexagon end   = path.get(i + 1);
+            if (start == null || end == null) continue;
+            g2d.drawLine(
+                (int) start.getCenter().getX(), 
+                (int) start.getCenter().getY(), 
+                (int)   end.getCenter().getX(), 
+                (int)   end.getCenter().getY()
+            );
+        }
+    }
+
+    // Colour of a range tile, fading from green to orange as the remaining movement runs out
+    private Color rangeColor(Hexagon hex) {
+        if (entityRange == null || entityRange.getSpeed() <= 0) return Color.GREEN;
+        int remaining = entityRange.getRemaining(hex);
+        if (remaining < 0) return Color.GREEN;
+
+        float t = 1f - (float) remaining / entityRange.getSpeed();
+        Color low = new Color(0xF9A801);
+        return new Color(
+            Math.round(Color.GREEN.getRed()   + (low.getRed()   - Color.GREEN.getRed())   * t),
+            Math.round(Color.GREEN.getGreen() + (low.getGreen() - Color.GREEN.getGreen()) * t),
+            Math.round(Color.GREEN.getBlue()  + (low.getBlue()  - Color.GREEN.getBlue())  * t));
+    }
+
     // Add a tile to the entity range tiles collection
     public void addEntityRangeTile(Hexagon hex) {
         entityRangeTiles.add(hex);
@@ -769,6 +798,7 @@ public final class GraphicsHandler extends JFrame {
             // Update grid offset
             gridOffset(dx, dy);
             outOfBoundsCorrection();
+            syncLayout();
             // Update drag start point for next movement
             dragStart = e.getPoint();
             repaint();
@@ -777,8 +807,16 @@ public final class GraphicsHandler extends JFrame {
 
     // Prevent the grid from being dragged beyond reasonable bounds
     void outOfBoundsCorrection() {
+        // Without a background the world is the limit, there are no tiles to draw or select outside it
+        if(backgroundImage == null) {
+            Rectangle2D extent = WorldGrid.extent(hexSize, isFlat);
+            gridOffset.setLocation(
+                (int) Math.max(getWidth()  - extent.getMaxX(), Math.min(-extent.getMinX(), gridOffset.x)),
+                (int) Math.max(getHeight() - extent.getMaxY(), Math.min(-extent.getMinY(), gridOffset.y)));
+            syncLayout();
+            return;
+        }
         // Bound to the left
-        if(backgroundImage == null) return;
 
         if ( gridOffset.x > getWidth())  {
             gridOffset.setLocation(getWidth(),    gridOffset.y);
@@ -834,24 +872,18 @@ public final class GraphicsHandler extends JFrame {
 
         // Update line thickness based on zoom level
         thickness = Math.max(1, hexSize / 30);
-        
-        // Update tile under mouse reference after zoom
-        if (tileUnderMouse != null) {
-            Hexagon newTile = hexlist.get(tileUnderMouse.getGridPoint().x, tileUnderMouse.getGridPoint().y);
-            if (newTile != null) {
-                tileUnderMouse = newTile;
-            } else {
-                tileUnderMouse = null;
-            }
-        }
 
         outOfBoundsCorrection();
+        syncLayout();
+        // Free radii are measured in pixels, so their tile counts change with the zoom
+        evaluateTools();
         repaint();
     }
 
     // Set hexagon size and trigger repaint
     public void setHexSize(int size) {
         this.hexSize = size;
+        syncLayout();
         repaint();
     }
 
@@ -861,9 +893,40 @@ public final class GraphicsHandler extends JFrame {
         repaint();
     }
 
-    // Get the current hexagon list
-    public TwoKeyMap<Integer,Integer,Hexagon> getHexlist() {
-        return hexlist;
+    // Push the current zoom, offset and orientation to the tile layout
+    void syncLayout() {
+        world.getLayout().update(hexSize, gridOffset.x, gridOffset.y, isFlat);
+    }
+
+    // Get the row/column range currently on screen
+    public Rectangle getGridBounds() {
+        return gridBounds;
+    }
+
+    // Get the tiles currently on screen
+    public ArrayList<Hexagon> getVisibleTiles() {
+        return world.tilesIn(gridBounds);
+    }
+
+    // Get the visible free tiles a character on start can't walk into, recomputed only when something changed
+    private ArrayList<Hexagon> getUnreachableTiles(Hexagon start) {
+        if (start == unreachableStart && getTopology() == unreachableTopology
+            && occupancy.getEpoch() == unreachableEpoch && gridBounds.equals(unreachableBounds)) return unreachableTiles;
+        unreachableStart    = start;
+        unreachableTopology = getTopology();
+        unreachableEpoch    = occupancy.getEpoch();
+        unreachableBounds.setBounds(gridBounds);
+
+        unreachableTiles.clear();
+        for (Hexagon h : getVisibleTiles()) {
+            if (occupancy.get(h) == null && !AStar.isReachable(start, h, this)) unreachableTiles.add(h);
+        }
+        return unreachableTiles;
+    }
+
+    // Get the neighbor index of the world grid
+    public GridTopology getTopology() {
+        return world.getTopology();
     }
 
     // Spawn character entities on selected tiles or under mouse
@@ -916,6 +979,7 @@ public final class GraphicsHandler extends JFrame {
                     size, maxhealth, AC, speed, initiative
                 );
                 entities.add(c);
+                occupancy.add(c);
             } catch (Exception e) {
                 System.err.println("Character summon canceled");
             }
@@ -930,18 +994,13 @@ public final class GraphicsHandler extends JFrame {
     // Translate grid offset by specified amounts
     public void gridOffset(int x, int y) {
         gridOffset.translate(x, y);
+        syncLayout();
         tileUnderMouse = null;
     }
 
-    // Find entity located at specific hexagon
+    // Find entity occupying a specific hexagon
     public Entity selectEntity(Hexagon hex) {
-
-        for(Entity e : entities) {
-            if (e.getTile().getGridPoint().equals(hex.getGridPoint())) {
-                return e;
-            }
-        }
-        return null;
+        return occupancy.get(hex);
     }
 
     // Delete entities of specified type from the game
@@ -954,17 +1013,28 @@ public final class GraphicsHandler extends JFrame {
         };
         for(Entity e : entities) {
             if(type.isInstance(e)) {
-                Point p = e.getTile().getGridPoint();
-                hexlist.get(p.x, p.y);
                 markers.remove(e.getMarker());
                 delEntites.add(e);
             }
         }
         for (Entity e : delEntites) {
             entities.remove(e);
+            occupancy.remove(e);
+            fog.removeViewer(e);
         }
     }
 
+    // Evaluate the active attack tool after its input changed, repaints only if the result did
+    public void evaluateTools() {
+        AttackResult result = AttackResult.NONE;
+        if      (lineAttack != null) result = lineAttack.evaluate();
+        else if (areaAttack != null) result = areaAttack.evaluate();
+        else if (coneAttack != null) result = coneAttack.evaluate();
+        if (result == attack) return;
+        attack = result;
+        repaint();
+    }
+
     // Change the current color theme
     public void changeTheme(String s) {
         Theme theme = null;
@@ -1011,6 +1081,7 @@ public final class GraphicsHandler extends JFrame {
                     tile.getCenter()
                 );
                 entities.add(w);
+                occupancy.add(w);
             } catch (Exception e) {
                 System.err.println("Wall summon canceled");
             }
@@ -1022,6 +1093,11 @@ public final class GraphicsHandler extends JFrame {
         isFlat = !isFlat;
         gridOffset = new Point((int) (gridOffset.x),
                             (int) (gridOffset.y));
+        world.setFlat(isFlat);
+        outOfBoundsCorrection();
+        syncLayout();
+        // Footprints depend on the neighbor layout of the orientation
+        occupancy.rebuild(entities);
         repaint();
     }
 
@@ -1029,16 +1105,14 @@ public final class GraphicsHandler extends JFrame {
     public void addEntityPreviewTiles(IOHandler IO) {
         if (!selectedEntityTiles.isEmpty() && selectedEntityTiles != null &&
             selectEntity(selectedEntityTiles.get(0)) instanceof Character) {
-            if (Character.getOccupiedTiles(tileUnderMouse, selectEntity(selectedEntityTiles.get(0)).getSize(), this) != null) {
-                for (Hexagon hex : Character.getOccupiedTiles(tileUnderMouse, selectEntity(selectedEntityTiles.get(0)).getSize(), this)) {
-                    if (hex != null && !entityPreviewTiles.contains(hex)) {
-                        addEntityPreviewTile(hex);
-                        // Calculate movement path if within range
-                        if(entityRangeTiles.contains(hex))
-                            path = AStar.run(selectedEntityTiles.get(0), hex, this, false);
-                    }
-                }
+            for (Hexagon hex : Character.getOccupiedTiles(tileUnderMouse, selectEntity(selectedEntityTiles.get(0)).getSize(), this)) {
+                if (hex != null) entityPreviewTiles.add(hex);
             }
+            // Movement path if within range, read from the selection's distance field unless the grid changed since
+            Hexagon start = selectedEntityTiles.get(0);
+            if (entityRange != null && entityRange.contains(tileUnderMouse))
+                path = entityRange.startsAt(start) ? entityRange.pathTo(tileUnderMouse) : AStar.run(start, tileUnderMouse, this, false);
+            repaint();
         }
     }
 
@@ -1047,44 +1121,29 @@ public final class GraphicsHandler extends JFrame {
         return isFlat;
     }
 
-    // Find the hexagon closest to a given point
+    // Find the hexagon containing a given point
     public Hexagon findClosestHexagon(Point2D point) {
-        Hexagon closest = null;
-        double minDist = hexSize-1;
-        for (Hexagon hex : hexlist.values()) {
-            double dist = point.distance(hex.getCenter());
-            if (dist < minDist) {
-                minDist = dist;
-                closest = hex;
-            }
-        }
-        return closest;
+        syncLayout();
+        Point p = world.getLayout().toGrid(point.getX(), point.getY());
+        return world.tile(p.x, p.y);
     }
-	public Hexagon[] findClosestHexagons(Point2D point) {
+
+    // Find the hexagon containing a point, plus a neighbor if the point lies on their shared edge
+    public Hexagon[] findClosestHexagons(Point2D point) {
         Hexagon[] closest = new Hexagon[2];
-        double minDist = Double.MAX_VALUE;
         double tolerance = 1.0; // Adjust this threshold as needed
-        
-        for (Hexagon hex : hexlist.values()) {
-            double dist = point.distance(hex.getCenter());
-            
-            if (dist < minDist) {
-                // Check if previous closest is within tolerance of new distance
-                if (Math.abs(minDist - dist) <= tolerance && closest[0] != null) {
-                    closest[1] = closest[0]; // Keep previous as second closest
-                } else {
-                    closest[1] = null; // Clear second if distances aren't close
-                }
-                closest[0] = hex;
-                minDist = dist;
-            } else if (Math.abs(dist - minDist) <= tolerance) {
-                // This hexagon is approximately same distance as closest
-                if (closest[1] == null) {
-                    closest[1] = hex;
-                }
+
+        closest[0] = findClosestHexagon(point);
+        if (closest[0] == null) return closest;
+
+        // Only the neighbors can be about as close as the containing hexagon
+        double minDist = point.distance(closest[0].getCenter());
+        for (Hexagon hex : AStar.getNeighbors(closest[0], this)) {
+            if (hex != null && Math.abs(point.distance(hex.getCenter()) - minDist) <= tolerance) {
+                closest[1] = hex;
+                break;
             }
         }
-        
         return closest;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,150 @@
+package main;
+
+import calc.TerrainLayer;
+import calc.WorldGrid;
+import fx.HexLayout;
+import fx.Hexagon;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Cached raster of the static grid: hexagon outlines and terrain shading.
+ * The image covers the panel plus a margin on every side and is rendered for one grid
+ * offset. Later frames only blit it, shifted by how far the grid was panned since. Once
+ * the pan leaves the margin, the image is scrolled by that distance and only the strips
+ * it exposed are drawn, so a long pan never renders the whole screen again. Everything is
+ * rendered again only when the size, line thickness, orientation, colour or terrain
+ * changes. Offsets are whole pixels, so the shifted blit lines up exactly with hexagons
+ * drawn directly onto the panel.
+ */
+public class GridLayer {
+
+    // Extra pixels rendered around the panel, the grid can be panned this far before scrolling the image
+    private static final int MARGIN = 256;
+
+    private BufferedImage image;
+    // Second buffer of the same size, the image is scrolled into it
+    private BufferedImage spare;
+
+    // Parameters the image was rendered with
+    private int hexSize, thickness, width, height, terrainEpoch;
+    private boolean isFlat;
+    private Color color;
+    private int offsetX, offsetY;
+
+    /**
+     * Draws the grid, re-rendering the cached image first if it is stale.
+     * @param g2d Target graphics of the grid panel
+     * @param world The world grid, its layout must match the current view
+     * @param terrain Terrain costs to shade
+     * @param offset Current grid offset
+     * @param thickness Line thickness
+     * @param color Line colour
+     * @param width Panel width
+     * @param height Panel height
+     */
+    public void paint(Graphics2D g2d, WorldGrid world, TerrainLayer terrain, Point offset,
+                      int thickness, Color color, int width, int height) {
+        HexLayout layout = world.getLayout();
+        if (image == null
+            || hexSize != layout.getHexSize() || isFlat != layout.isFlat()
+            || this.thickness != thickness || !color.equals(this.color)
+            || this.width != width || this.height != height
+            || terrainEpoch != terrain.getEpoch()) {
+            render(world, terrain, offset, thickness, color, width, height);
+        } else if (Math.abs(offset.x - offsetX) > MARGIN || Math.abs(offset.y - offsetY) > MARGIN) {
+            scroll(world, terrain, offset);
+        }
+        g2d.drawImage(image, offset.x - offsetX - MARGIN, offset.y - offsetY - MARGIN, null);
+    }
+
+    private void render(WorldGrid world, TerrainLayer terrain, Point offset,
+                        int thickness, Color color, int width, int height) {
+        HexLayout layout = world.getLayout();
+        this.hexSize      = layout.getHexSize();
+        this.isFlat       = layout.isFlat();
+        this.thickness    = thickness;
+        this.color        = color;
+        this.width        = width;
+        this.height       = height;
+        this.terrainEpoch = terrain.getEpoch();
+        this.offsetX      = offset.x;
+        this.offsetY      = offset.y;
+
+        int imageWidth  = Math.max(1, width  + 2 * MARGIN);
+        int imageHeight = Math.max(1, height + 2 * MARGIN);
+        if (image == null || image.getWidth() != imageWidth || image.getHeight() != imageHeight) {
+            image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        Graphics2D g = image.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, imageWidth, imageHeight);
+        g.dispose();
+        drawTiles(world, terrain, new Rectangle(0, 0, imageWidth, imageHeight));
+    }
+
+    /**
+     * Moves the image along with the grid and draws only the strips the move exposed.
+     * The image is copied into the spare buffer shifted by the pan, then the buffers swap.
+     */
+    private void scroll(WorldGrid world, TerrainLayer terrain, Point offset) {
+        int dx = offset.x - offsetX, dy = offset.y - offsetY;
+        int imageWidth = image.getWidth(), imageHeight = image.getHeight();
+        if (Math.abs(dx) >= imageWidth || Math.abs(dy) >= imageHeight) {
+            render(world, terrain, offset, thickness, color, width, height);
+            return;
+        }
+        this.offsetX = offset.x;
+        this.offsetY = offset.y;
+
+        if (spare == null || spare.getWidth() != imageWidth || spare.getHeight() != imageHeight) {
+            spare = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
+        }
+        Graphics2D g = spare.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, dx, dy, null);
+        // Clear what the shifted image didn't cover, the old pixels there belong elsewhere
+        g.setComposite(AlphaComposite.Clear);
+        Rectangle columns = new Rectangle(dx > 0 ? 0 : imageWidth + dx, 0, Math.abs(dx), imageHeight);
+        // The corner both strips share belongs to the columns, drawing it twice would darken it
+        Rectangle rows    = new Rectangle(Math.max(dx, 0), dy > 0 ? 0 : imageHeight + dy, imageWidth - Math.abs(dx), Math.abs(dy));
+        g.fill(columns);
+        g.fill(rows);
+        g.dispose();
+
+        BufferedImage scrolled = spare;
+        spare = image;
+        image = scrolled;
+        if (!columns.isEmpty()) drawTiles(world, terrain, columns);
+        if (!rows.isEmpty())    drawTiles(world, terrain, rows);
+    }
+
+    /**
+     * Draws the tiles overlapping an area of the image, clipped to that area.
+     * @param area Area in image coordinates
+     */
+    private void drawTiles(WorldGrid world, TerrainLayer terrain, Rectangle area) {
+        HexLayout layout = world.getLayout();
+        Graphics2D g = image.createGraphics();
+        g.setClip(area);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setStroke(new BasicStroke(thickness));
+        // Tiles are positioned in panel coordinates, the image starts MARGIN pixels before the panel
+        g.translate(MARGIN, MARGIN);
+
+        for (Hexagon hex : world.tilesIn(layout.gridBlock(area.x - MARGIN, area.y - MARGIN, area.width, area.height))) {
+            // Shade difficult terrain darker the more it costs
+            if (!terrain.isUniform()) {
+                int cost = terrain.cost(hex.getGridPoint().x, hex.getGridPoint().y);
+                if (cost > TerrainLayer.DEFAULT_COST) {
+                    g.setColor(new Color(139, 90, 43, Math.min(255, 40 * cost)));
+                    g.fill(hex.getShape());
+                }
+            }
+            g.setColor(color);
+            g.draw(hex.getShape());
+        }
+        g.dispose();
+    }
+}
@@ -56,6 +56,12 @@ public class IOHandler extends MouseAdapter {
 	// Current mouse position
 	public Point mousePos;
 
+	// Running total of the finished measurements, with how many were counted, the last one and the orientation
+	private int finishedLength  = 0;
+	private int countedMeasures = 0;
+	private Measure lastCounted;
+	private boolean countedFlat = GraphicsHandler.isFlat;
+
 	// Constructor initializes the handler with a graphics handler reference
 	public IOHandler(GraphicsHandler gh) {
 		this.gh = gh;
@@ -129,6 +135,8 @@ public class IOHandler extends MouseAdapter {
 		if(mode == Tool.LENGTH_MODE) {
 			updateTotalLength();
 		}
+		// Attack tools follow the mouse, Ctrl makes them follow it between tile centers
+		gh.evaluateTools();
 	}
 
 	// Handle mouse dragging - supports tile selection and drag operations
@@ -175,6 +183,7 @@ public class IOHandler extends MouseAdapter {
 				// Adjust cone angle in cone attack mode
 				case Tool.CONE_MODE	-> {
 					gh.coneAttack.changeAngle(notches);
+					gh.evaluateTools();
 				}
 			}
 		} else {
@@ -251,7 +260,10 @@ public class IOHandler extends MouseAdapter {
 					isRShiftDown = true;
 				}
 			}
-			case KeyEvent.VK_CONTROL -> isCtrlDown = true;
+			case KeyEvent.VK_CONTROL -> {
+				isCtrlDown = true;
+				gh.evaluateTools();
+			}
 			case KeyEvent.VK_ALT 	 -> isAltDown  = true;
 			// Enter key - toggle console or simulate mouse click
 			case KeyEvent.VK_ENTER   -> {
@@ -337,9 +349,11 @@ public class IOHandler extends MouseAdapter {
 						int[] cp = Calc.toCubeCoordinate(en.getTile().getGridPoint().x, en.getTile().getGridPoint().y);
 						Point p = Calc.toPoint(new int[]{pivot[0] + cp[0], pivot[1] + cp[1], pivot[2] + cp[2]});
 						
-						en.setTile(gh.hexlist.get(p.x,p.y));
+						en.setTile(gh.world.tile(p.x,p.y));
 						try {
-							gh.entities.add(en.clone());
+							Entity pasted = en.clone();
+							gh.entities.add(pasted);
+							gh.occupancy.add(pasted);
 						} catch (Exception x) {
 						}
 					}
@@ -412,7 +426,10 @@ public class IOHandler extends MouseAdapter {
 					isRShiftDown = false;
 				}
 			}
-			case KeyEvent.VK_CONTROL -> isCtrlDown = false;
+			case KeyEvent.VK_CONTROL -> {
+				isCtrlDown = false;
+				gh.evaluateTools();
+			}
 			case KeyEvent.VK_ALT 	 -> isAltDown  = false;
 
 		}
@@ -443,6 +460,7 @@ public class IOHandler extends MouseAdapter {
 				gh.coneAttack = new Cone(gh);
 			}
 		}
+		gh.evaluateTools();
 	}
 
 	// Handle left mouse button press - tool selection and tile/entity selection
@@ -491,7 +509,7 @@ public class IOHandler extends MouseAdapter {
 		if (mode != Tool.CONE_MODE) {
 			gh.coneAttack = null;
 		}
-		gh.attackTiles.clear();
+		gh.evaluateTools();
 		gh.repaint();
 	}
 
@@ -531,6 +549,7 @@ public class IOHandler extends MouseAdapter {
 			
 		}
 		mouseActive = false;
+		gh.evaluateTools();
 		gh.repaint();
 	}
 
@@ -547,31 +566,18 @@ public class IOHandler extends MouseAdapter {
 	// Select entity at current hexagon - toggles selection if already selected
 	public void selectEntity() {
 		
-		if (!gh.selectedEntityTiles.isEmpty()) {
-			for(Hexagon h : gh.selectedEntityTiles) {
-				if (currentHexagon.getGridPoint().equals(h.getGridPoint())) {
-					gh.selectedEntityTiles.remove(h);
-					return;
-				}
-			}
-		}
+		if (gh.selectedEntityTiles.remove(currentHexagon)) return;
 
 		selectEntityNoDeselection();
 	}
 
 	// Select entity without deselecting if already selected
 	private void selectEntityNoDeselection() {
-		// Find entities occupying the current hexagon
-		for(Entity en : gh.entities) {
-			for (Hexagon occTile : en.getOccupiedTiles()) {
-
-				if(currentHexagon.getGridPoint().equals(
-					occTile.getGridPoint()
-				)) {
-					gh.addSelectedEntityTile(en.getTile());
-					hasSelectedEntity = true;
-				}
-			}
+		// Find the entity occupying the current hexagon
+		Entity en = gh.occupancy.get(currentHexagon);
+		if (en != null) {
+			gh.addSelectedEntityTile(en.getTile());
+			hasSelectedEntity = true;
 		}
 		
 		// Clear previous range display
@@ -583,45 +589,12 @@ public class IOHandler extends MouseAdapter {
 		if (hasSelectedEntity && !gh.selectedEntityTiles.isEmpty()) {
 			Entity selectedEntity = gh.selectEntity(gh.selectedEntityTiles.getFirst());
 			if (selectedEntity instanceof Character character) {
-				ArrayList<Hexagon> rangeTiles = AStar.range(character.getTile(), character.getSpeed(), (Character) selectedEntity, gh);
-				for (Hexagon centerTile : rangeTiles) {
-					if (centerTile == null) continue;
-					// Handle large characters that occupy multiple tiles
-					if (character.getSize() > 0) {
-						ArrayList<Hexagon> wouldOccupyTiles = Character.getOccupiedTiles(centerTile, character.getSize(), gh);
-						boolean positionIsValid = true;
-						
-						// Check every single tile the character would occupy
-						for(Hexagon occupiedTile : wouldOccupyTiles) {
-							if (occupiedTile == null) {
-								positionIsValid = false;
-								break;
-							}
-							
-							// Check if there's any entity at this tile
-							Entity blockingEntity = gh.selectEntity(occupiedTile);
-							if (blockingEntity != null && !blockingEntity.equals(character)) {
-								// This tile is blocked by another entity (wall, character, etc.)
-								positionIsValid = false;
-								break;
-							}
-						}
-						
-						// Only add this center position to range if ALL occupied tiles are free
-						if (positionIsValid) {
-							// Add only the center tile to the range display
-							// (The character occupies multiple tiles, but we show range based on center)
-							gh.addEntityRangeTile(centerTile);
-						}
-						
-					} else {
-						// For small characters (size 0): simple check
-						Entity blockingEntity = gh.selectEntity(centerTile);
-						if (blockingEntity == null || blockingEntity.equals(character)) {
-							gh.addEntityRangeTile(centerTile);
-						}
-					}
+				// The range only contains positions where the whole footprint is free
+				gh.entityRange = AStar.movementRange(character.getTile(), character.getSpeed(), character, gh);
+				for (Hexagon centerTile : gh.entityRange.getTiles()) {
+					gh.entityRangeTiles.add(centerTile);
 				}
+				gh.repaint();
 			}
 		}
 	}
@@ -630,17 +603,9 @@ public class IOHandler extends MouseAdapter {
 	public void selectTile() {
 		
 		gh.path.clear();
+		gh.squadPaths.clear();
 		// Toggle tile selection if already selected
-		if (!gh.selectedTiles.isEmpty()) {
-			for(Hexagon h : gh.selectedTiles){
-				if (currentHexagon.getGridPoint().equals(
-					h.getGridPoint()
-				)) {
-					gh.selectedTiles.remove(h);
-					return;
-				} 
-			}
-		}
+		if (gh.selectedTiles.remove(currentHexagon)) return;
 		if(gh.selectedEntityTiles != null && !isShiftDown)
 			gh.addSelectedTile(currentHexagon);
 
@@ -690,10 +655,19 @@ public class IOHandler extends MouseAdapter {
 
 	// Calculate and display total length of all measurements
 	public void updateTotalLength() {
-		int length = 0;
-		for(Measure m : gh.measure) {
-			length += m.length();
-		}
+		// Finished segments never change, so they are summed once and only the live one is measured
+		if (countedMeasures > gh.measure.size() || countedFlat != GraphicsHandler.isFlat
+			|| (countedMeasures > 0 && gh.measure.get(countedMeasures - 1) != lastCounted)) {
+			finishedLength  = 0;
+			countedMeasures = 0;
+			countedFlat     = GraphicsHandler.isFlat;
+		}
+		while (countedMeasures < gh.measure.size() && gh.measure.get(countedMeasures).getFinishedPoint() != null) {
+			lastCounted = gh.measure.get(countedMeasures++);
+			finishedLength += lastCounted.length();
+		}
+		int length = finishedLength;
+		if (countedMeasures < gh.measure.size()) length += gh.measure.getLast().length();
 		if (gh.totalLength == null) {
 			gh.totalLength = new Marker(mousePos, Marker.STAT, false);
 			gh.totalLength.setSuffix("ft");
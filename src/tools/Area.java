@@ -24,6 +24,13 @@ public class Area {
    /** Current radius of the area in pixels */
    private double radius;
 
+   /** Tiles and characters of the area, with the radius, orientation and occupancy they were found for */
+   private final ArrayList<Hexagon> area = new ArrayList<>();
+   private AttackResult result = AttackResult.NONE;
+   private int cachedRadius = -1;
+   private boolean cachedFlat;
+   private int cachedEpoch;
+
    /**
     * Constructor - creates a new area centered on the current tile under mouse
     * 
@@ -34,7 +41,7 @@ public class Area {
        // Set origin to the current tile under the mouse cursor
        this.origin = gh.tileUnderMouse.getGridPoint();
        // Get the world coordinates of the origin tile's center
-       originPoint = gh.hexlist.get(origin.x, origin.y).getCenter();
+       originPoint = gh.world.tile(origin.x, origin.y).getCenter();
    }
 
    /**
@@ -48,7 +55,7 @@ public class Area {
        if(gh.tileUnderMouse == null) return radius;
        
        // Update origin point coordinates
-       originPoint = gh.hexlist.get(origin.x, origin.y).getCenter();
+       originPoint = gh.world.tile(origin.x, origin.y).getCenter();
        
        // Calculate radius based on input method:
        // - If Ctrl+mouse active: use exact mouse position for precise measurement
@@ -62,14 +69,17 @@ public class Area {
    
    /**
     * Convert the current radius from pixels to tile units
-    * Accounts for hexagonal tile geometry
+    * Snapped to the tile under the mouse it is the hex distance to that tile,
+    * otherwise the number of whole tile steps (sqrt(3) * hexSize) the radius spans
     * 
     * @return Radius expressed in number of tiles
     */
-   public double getRadiusInTiles() {
-       // Convert pixel radius to tile radius using hexagon geometry
-       // Factor includes hexagon size and sqrt(3) for proper hexagonal spacing
-       return (getRadius() + 1 / (gh.hexSize * Math.sqrt(3)));
+   public int getRadiusInTiles() {
+       if (gh.tileUnderMouse != null && !(gh.io.isCtrlDown && gh.io.isMouseActive())) {
+           Point end = gh.tileUnderMouse.getGridPoint();
+           return Calc.hexDistance(origin.x, origin.y, end.x, end.y);
+       }
+       return (int) ((getRadius() + 1) / (gh.hexSize * Math.sqrt(3)));
    }
    
    /**
@@ -82,31 +92,36 @@ public class Area {
    }
    
    /**
-    * Find all hexagons within the current area radius
-    * Updates the visual attack tiles and triggers a repaint
+    * Find all hexagons within the current area radius and the characters standing on them
+    * The area is every tile within the radius in cube coordinates, so it costs O(radius²)
+    * and does not depend on the zoom. The result is kept until the radius, the orientation
+    * or the occupancy changes, so evaluating again without new input does no work
     * 
-    * @return List of all hexagons within the area of effect
+    * @return Covered tiles and the characters inside the area of effect
     */
-   public ArrayList<Hexagon> getAttackedCharacters() {
-       ArrayList<Hexagon> attacked = new ArrayList<>();
-       
-       // Clear previous attack visualization
-       gh.attackTiles.clear();
-       
-       // Update current radius
-       getRadius();
-       
-       // Check each hexagon in the grid
-       for(Hexagon h : gh.hexlist.values()) {
-           // Include hexagon if its center is within radius (+1 pixel tolerance)
-           if (radius + 1 > Calc.distance(h.getCenter(), originPoint)) {
-               attacked.add(h);           // Add to result list
-               gh.attackTiles.add(h);     // Add to visual highlight list
+   public AttackResult evaluate() {
+       int tiles = getRadiusInTiles();
+       int epoch = gh.occupancy.getEpoch();
+       if (tiles == cachedRadius && GraphicsHandler.isFlat == cachedFlat && epoch == cachedEpoch) return result;
+       boolean resized = tiles != cachedRadius || GraphicsHandler.isFlat != cachedFlat;
+       cachedRadius = tiles;
+       cachedFlat   = GraphicsHandler.isFlat;
+       cachedEpoch  = epoch;
+
+       if (resized) {
+           area.clear();
+           // Pointy grids shift rows instead of columns, so the axes are swapped like in Calc.hexDistance
+           boolean isFlat = GraphicsHandler.isFlat;
+           int[] center = isFlat ? Calc.toCubeCoordinate(origin.x, origin.y) : Calc.toCubeCoordinate(origin.y, origin.x);
+           for (int dx = -tiles; dx <= tiles; dx++) {
+               for (int dy = Math.max(-tiles, -dx - tiles); dy <= Math.min(tiles, -dx + tiles); dy++) {
+                   Point p = Calc.toPoint(new int[] {center[0] + dx, center[1] + dy, center[2] - dx - dy});
+                   Hexagon h = isFlat ? gh.world.tile(p.x, p.y) : gh.world.tile(p.y, p.x);
+                   if (h != null) area.add(h);
+               }
            }
        }
-       
-       // Trigger visual update to show affected area
-       gh.repaint();
-       return attacked;
+       result = AttackResult.of(area, gh);
+       return result;
    }
-}
\ No newline at end of file
+}
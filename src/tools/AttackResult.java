@@ -0,0 +1,59 @@
+package tools;
+
+import entities.Character;
+import fx.Hexagon;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import main.GraphicsHandler;
+
+/**
+* Outcome of evaluating an attack tool: the tiles it covers and the characters on them
+* Results are immutable, the tools create a new one whenever their input changed and the
+* painter only reads the latest one, so painting never has to evaluate a tool
+*/
+public final class AttackResult {
+   /** Result of no active tool */
+   public static final AttackResult NONE = new AttackResult(List.of(), List.of());
+
+   /** Covered tiles, in the order the tool found them */
+   private final List<Hexagon> tiles;
+
+   /** Characters standing on the covered tiles, each once */
+   private final List<Character> characters;
+
+   /**
+    * Creates a result from copies of the given lists
+    *
+    * @param tiles Covered tiles
+    * @param characters Characters on the covered tiles
+    */
+   public AttackResult(List<Hexagon> tiles, List<Character> characters) {
+       this.tiles = Collections.unmodifiableList(new ArrayList<>(tiles));
+       this.characters = Collections.unmodifiableList(new ArrayList<>(characters));
+   }
+
+   /**
+    * Creates a result for the given tiles, looking up the characters on them
+    * Characters can be larger than one tile, each is only listed once
+    *
+    * @param tiles Covered tiles
+    * @param gh Graphics handler containing the occupancy
+    * @return The result
+    */
+   public static AttackResult of(List<Hexagon> tiles, GraphicsHandler gh) {
+       ArrayList<Character> characters = new ArrayList<>();
+       for (Hexagon h : tiles) {
+           if (gh.selectEntity(h) instanceof Character c && !characters.contains(c)) characters.add(c);
+       }
+       return new AttackResult(tiles, characters);
+   }
+
+   public List<Hexagon> getTiles() {
+       return tiles;
+   }
+
+   public List<Character> getCharacters() {
+       return characters;
+   }
+}
@@ -1,6 +1,7 @@
 package tools;
 
 import calc.Calc;
+import calc.ConeTemplates;
 import fx.Hexagon;
 import java.awt.Point;
 import java.awt.geom.Point2D;
@@ -30,6 +31,19 @@ public class Cone {
    /** Starting angle of the cone (center direction minus half the cone angle) */
    private double startAngle;
 
+   /** Center direction in steps of ConeTemplates.STEP degrees */
+   private int direction;
+
+   /** Cone shapes shared by all cones */
+   private static final ConeTemplates TEMPLATES = new ConeTemplates(128);
+
+   /** Tiles and characters of the cone, with the shape and occupancy they were found for */
+   private final ArrayList<Hexagon> cone = new ArrayList<>();
+   private AttackResult result = AttackResult.NONE;
+   private int cachedRadius = -1, cachedDirection, cachedAperture;
+   private boolean cachedFlat;
+   private int cachedEpoch;
+
    /**
     * Constructor - creates a new cone centered on the current tile under mouse
     * 
@@ -40,9 +54,9 @@ public class Cone {
        // Set origin to the current tile under the mouse cursor
        this.origin = gh.tileUnderMouse.getGridPoint();
        // Get the world coordinates of the origin tile's center
-       originPoint = gh.hexlist.get(origin.x, origin.y).getCenter();
-       // Default cone angle (slightly wider than 90° for better coverage)
-       angle = 91;
+       originPoint = gh.world.tile(origin.x, origin.y).getCenter();
+       // Default cone angle, tiles exactly on the edges are covered
+       angle = 90;
    }
 
    /**
@@ -53,7 +67,7 @@ public class Cone {
     */
    public double getRadius() {
        // Update origin point coordinates
-       originPoint = gh.hexlist.get(origin.x, origin.y).getCenter();
+       originPoint = gh.world.tile(origin.x, origin.y).getCenter();
        
        // Return cached radius if no tile under mouse
        if(gh.tileUnderMouse == null) return radius;
@@ -69,13 +83,17 @@ public class Cone {
 
    /**
     * Convert the current radius from pixels to tile units
-    * Accounts for hexagonal tile geometry
+    * Snapped to the tile under the mouse it is the hex distance to that tile,
+    * otherwise the number of whole tile steps (sqrt(3) * hexSize) the radius spans
     * 
     * @return Radius expressed in number of tiles
     */
-   public double getRadiusInTiles() {
-       // Convert pixel radius to tile radius using hexagon geometry
-       return ((getRadius() + 1) / (gh.hexSize * Math.sqrt(3)));
+   public int getRadiusInTiles() {
+       if (gh.tileUnderMouse != null && !(gh.io.isCtrlDown && gh.io.isMouseActive())) {
+           Point end = gh.tileUnderMouse.getGridPoint();
+           return Calc.hexDistance(origin.x, origin.y, end.x, end.y);
+       }
+       return (int) ((getRadius() + 1) / (gh.hexSize * Math.sqrt(3)));
    }
 
    /**
@@ -108,65 +126,41 @@ public class Cone {
    }
    
    /**
-    * Check if a test angle falls within a specified angular range
-    * Handles wrap-around at 0°/360° boundary
+    * Find all hexagons within the current cone area and the characters standing on them
+    * The covered tiles come from a template for the radius, direction and aperture, which
+    * only has to be translated to the origin. The result is kept until one of them, the
+    * orientation or the occupancy changes, so evaluating again without new input does no work
     * 
-    * @param testAngle Angle to test (in degrees)
-    * @param startAngle Starting angle of the range
-    * @param rangeAngle Width of the angular range
-    * @return true if testAngle is within the range
+    * @return Covered tiles and the characters inside the cone of effect
     */
-   private boolean isAngleInRange(double testAngle, double startAngle, double rangeAngle) {
-       double endAngle = (startAngle + rangeAngle) % 360;
-       
-       if (startAngle <= endAngle) {
-           // Normal case - range doesn't cross 0°
-           return testAngle >= startAngle && testAngle <= endAngle;
-       } else {
-           // Wrap-around case - range crosses 0°/360° boundary
-           return testAngle >= startAngle || testAngle <= endAngle;
-       }
-   }
-
-   /**
-    * Find all hexagons within the current cone area
-    * Updates the visual attack tiles and triggers a repaint
-    * 
-    * @return List of all hexagons within the cone of effect
-    */
-   public ArrayList<Hexagon> getAttackedCharacters() {
-       ArrayList<Hexagon> attacked = new ArrayList<>();
-       
-       // Clear previous attack visualization
-       gh.attackTiles.clear();
-       
-       // Update current radius and start angle
-       getRadius();
+   public AttackResult evaluate() {
+       int tiles = getRadiusInTiles();
        getStartAngle();
-       
-       // Check each hexagon in the grid
-       for(Hexagon h : gh.hexlist.values()) {
-           double distance = Calc.distance(h.getCenter(), originPoint);
-           
-           // Skip the origin hex (too close to origin)
-           if(distance < gh.hexSize) continue;
-           
-           // Check if hexagon is within radius
-           if (distance <= radius + 1) {
-               // Calculate angle from origin to this hexagon
-               double hexAngle = calculateAngle(originPoint, h.getCenter());
-               
-               // Check if hexagon is within the cone's angular range
-               if (isAngleInRange(hexAngle, startAngle, angle)) {
-                   attacked.add(h);           // Add to result list
-                   gh.attackTiles.add(h);     // Add to visual highlight list
-               }
+       int aperture = (int) Math.round(angle / ConeTemplates.STEP);
+       int epoch = gh.occupancy.getEpoch();
+       boolean reshaped = tiles != cachedRadius || direction != cachedDirection
+           || aperture != cachedAperture || GraphicsHandler.isFlat != cachedFlat;
+       if (!reshaped && epoch == cachedEpoch) return result;
+       cachedRadius    = tiles;
+       cachedDirection = direction;
+       cachedAperture  = aperture;
+       cachedFlat      = GraphicsHandler.isFlat;
+       cachedEpoch     = epoch;
+
+       if (reshaped) {
+           cone.clear();
+           // Pointy grids shift rows instead of columns, so the axes are swapped like in Calc.hexDistance
+           boolean isFlat = GraphicsHandler.isFlat;
+           int[] center = isFlat ? Calc.toCubeCoordinate(origin.x, origin.y) : Calc.toCubeCoordinate(origin.y, origin.x);
+           int[] template = TEMPLATES.get(tiles, direction, aperture, isFlat);
+           for (int i = 0; i < template.length; i += 3) {
+               Point p = Calc.toPoint(new int[] {center[0] + template[i], center[1] + template[i + 1], center[2] + template[i + 2]});
+               Hexagon h = isFlat ? gh.world.tile(p.x, p.y) : gh.world.tile(p.y, p.x);
+               if (h != null) cone.add(h);
            }
        }
-       
-       // Trigger visual update to show affected area
-       gh.repaint();
-       return attacked;
+       result = AttackResult.of(cone, gh);
+       return result;
    }
 
    /**
@@ -180,8 +174,6 @@ public class Cone {
        // Normalize angle to 0-360° range
        angle = angle % 360;
        if (angle < 0) angle += 360;
-       
-       System.out.println(angle); // Debug output
    }
 
    /**
@@ -210,8 +202,9 @@ public class Cone {
                : gh.tileUnderMouse.getCenter()
        );
        
-       // Center the cone on the mouse direction
-       startAngle = mouseAngle - angle/2;
+       // Center the cone on the mouse direction, snapped to the directions templates exist for
+       direction  = (int) Math.round(mouseAngle / ConeTemplates.STEP) % (360 / ConeTemplates.STEP);
+       startAngle = direction * ConeTemplates.STEP - angle/2;
        
        // Normalize to 0-360° range
        startAngle = startAngle % 360;
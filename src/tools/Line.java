@@ -1,14 +1,13 @@
 package tools;
 
-import calc.AStar;
-import entities.Character;
-import entities.Entity;
+import calc.Calc;
+import calc.HexLine;
+import fx.HexLayout;
 import fx.Hexagon;
 import java.awt.Point;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
-import java.util.List;
 import main.GraphicsHandler;
 
 /**
@@ -25,6 +24,12 @@ public class Line {
    /** The geometric line object representing the current line */
    private final Line2D line = new Line2D.Double();
 
+   /** Last evaluation, with the endpoints, zoom and occupancy it was made for */
+   private AttackResult result = AttackResult.NONE;
+   private Point2D lastFrom, lastTo;
+   private int lastSize, lastEpoch;
+   private boolean lastFlat;
+
    /**
     * Constructor - creates a new line starting from the current tile under mouse
     * 
@@ -41,7 +46,7 @@ public class Line {
         if(gh.tileUnderMouse == null) return line;
         try {
             line.setLine(
-                gh.hexlist.get(origin.x, origin.y).getCenter(),
+                gh.world.tile(origin.x, origin.y).getCenter(),
                 gh.io.isCtrlDown && gh.io.isMouseActive() ? gh.io.mousePos : gh.tileUnderMouse.getCenter()
             );
         } catch (Exception e) {
@@ -51,65 +56,44 @@ public class Line {
         return line;
     }
     public int length() {
-        ArrayList<Hexagon> aStarResult = AStar.run(
-            gh.hexlist.get(origin.x,origin.y),gh.tileUnderMouse,
-            gh,
-            true
-        );
-        int l = (aStarResult == null) ? 0 : aStarResult.size();
-        return l == 0 ? 0 : (l-1)*5;
+        if (gh.tileUnderMouse == null) return 0;
+        // Tiles between the ends, the same count a path without obstacles would have
+        Point end = gh.tileUnderMouse.getGridPoint();
+        return Calc.hexDistance(origin.x, origin.y, end.x, end.y) * 5;
+    }
+
+    /**
+     * Checks whether the origin can see the tile under the mouse.
+     * @return False if a wall lies on the line between the tile centers
+     */
+    public boolean hasLineOfSight() {
+        return HexLine.lineOfSight(gh.world.tile(origin.x, origin.y), gh.tileUnderMouse, gh);
     }
     public Point getOrigin() {
         return origin;
     }
-    public ArrayList<Hexagon> getAttackedCharacters() {
-        ArrayList<Hexagon> attacked = new ArrayList<>();
-        gh.attackTiles.clear();
-        for (Point2D p : getPointsAlongLineBySpacing(line, (double) gh.hexSize * Math.sqrt(3))) {
-            Hexagon h = gh.findClosestHexagon(p);
-            if (h == null) continue;
-            Entity e = (Character) gh.selectEntity(h);
-            gh.attackTiles.add(h);
-            if (e instanceof Character c) {
-                if(c.getOccupiedTiles().contains(h)){
-                    attacked.add(h);
-                }
-            } else {
-                //TODO Implement collision effect for line attacks
-            }
-            gh.repaint();
-        }
-        return attacked;
-    }
+    /**
+     * Collects every tile the line crosses and the characters on them.
+     * The result is kept until the line, the zoom or the occupancy changes.
+     * @return Crossed tiles and the characters standing on them
+     */
+    public AttackResult evaluate() {
+        if (getLine() == null || line.getP1().equals(line.getP2())) return result = AttackResult.NONE;
+        HexLayout layout = gh.world.getLayout();
+        if (line.getP1().equals(lastFrom) && line.getP2().equals(lastTo) && layout.getHexSize() == lastSize
+            && layout.isFlat() == lastFlat && gh.occupancy.getEpoch() == lastEpoch) return result;
+        lastFrom  = line.getP1();
+        lastTo    = line.getP2();
+        lastSize  = layout.getHexSize();
+        lastFlat  = layout.isFlat();
+        lastEpoch = gh.occupancy.getEpoch();
 
-    public static List<Point2D> getPointsAlongLineBySpacing(Line2D line, double spacing) {
-        double length = Math.sqrt(Math.pow(line.getX2() - line.getX1(), 2) + 
-                                 Math.pow(line.getY2() - line.getY1(), 2));
-        
-        int numPoints = (int) Math.ceil(length / spacing) + 1;
-        return getPointsAlongLineByNumber(line, numPoints);
-    }
-    public static List<Point2D> getPointsAlongLineByNumber(Line2D line, int numPoints) {
-        List<Point2D> points = new ArrayList<>();
-        
-        double x1 = line.getX1();
-        double y1 = line.getY1();
-        double x2 = line.getX2();
-        double y2 = line.getY2();
-        
-        // Calculate the step size for equal spacing
-        double step = 1.0 / (numPoints - 1);
-        
-        for (int i = 0; i < numPoints; i++) {
-            double t = i * step; // Parameter from 0 to 1
-            
-            // Linear interpolation
-            double x = x1 + t * (x2 - x1);
-            double y = y1 + t * (y2 - y1);
-            
-            points.add(new Point2D.Double(x, y));
+        ArrayList<Hexagon> crossed = new ArrayList<>();
+        for (Point p : HexLine.trace(lastFrom, lastTo, layout)) {
+            Hexagon h = gh.world.tile(p.x, p.y);
+            if (h != null) crossed.add(h);
         }
-        
-        return points;
+        result = AttackResult.of(crossed, gh);
+        return result;
     }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package tools;
 
-import calc.AStar;
 import calc.Calc;
 import java.awt.Point;
 import java.awt.geom.Line2D;
@@ -44,11 +43,11 @@ public class Measure {
        try {
            // Set line from origin center to target point
            line.setLine(
-               gh.hexlist.get(origin.x, origin.y).getCenter(),
+               gh.world.tile(origin.x, origin.y).getCenter(),
                // Use finished point if measurement is complete, otherwise follow mouse
                finishedPoint == null 
                    ? gh.tileUnderMouse.getCenter() 
-                   : gh.hexlist.get(finishedPoint.x, finishedPoint.y).getCenter()
+                   : gh.world.tile(finishedPoint.x, finishedPoint.y).getCenter()
            );
        } catch (Exception e) {
            // Return null if origin/target tile doesn't exist or other error occurs
@@ -80,27 +79,18 @@ public class Measure {
    }
 
    /**
-    * Calculates the length of the current path.
-    * @return Path length in pixels (waypoints * 5) or 0 for empty path
+    * Calculates the length of the measurement.
+    * Obstacles are ignored, so the shortest path is exactly the hex distance between
+    * the ends and no search is needed, finished or not.
+    * @return Length in feet (5 per tile) or 0 if there is no end yet
     */
-    public int length() {
-    // Check if the path is not yet finished
-    if(finishedPoint == null) {
-        // Calculate optimal path using A* algorithm from start point to current mouse position
-        int l = AStar.run(
-            gh.hexlist.get(origin.x,origin.y),  // Start point in hex grid
-            gh.tileUnderMouse,                  // Target point under mouse cursor
-            gh,                                 // Game handler for game field context
-            true                                // Enable A* optimization
-        ).size();
-        
-        // Convert waypoints to pixel length: (waypoints-1)*5, since first point doesn't count
-        return l == 0 ? 0 : (l-1)*5;
-    }
-    else 
-        // Path is finished: calculate direct distance between start and end point
-        return 5 * (int) Calc.distance(origin, finishedPoint);
-    }
+   public int length() {
+       // Follow the mouse until the measurement is finished
+       Point end = finishedPoint != null ? finishedPoint
+                 : gh.tileUnderMouse != null ? gh.tileUnderMouse.getGridPoint() : null;
+       if (end == null) return 0;
+       return 5 * Calc.hexDistance(origin.x, origin.y, end.x, end.y);
+   }
    
    /**
     * Get the grid coordinates of the measurement's end point